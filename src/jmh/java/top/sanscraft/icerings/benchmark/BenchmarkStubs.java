@@ -0,0 +1,267 @@
+package top.sanscraft.icerings.benchmark;
+
+import org.bukkit.Location;
+import org.bukkit.Material;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+import org.bukkit.block.data.BlockData;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.plugin.Plugin;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Logger;
+
+/**
+ * In-memory stand-ins for the Bukkit types the plugin touches, so benchmarks run without a server.
+ * Only the methods the benchmarked code calls are implemented; anything else throws.
+ */
+final class BenchmarkStubs {
+
+    /** Terrain surface height, the shell of a sphere centered here is half in stone and half in air */
+    static final int SURFACE_Y = 64;
+
+    /** Returned by a lenient handler for calls it leaves to the default answer */
+    static final Object UNHANDLED = new Object();
+
+    private static final Map<Class<?>, Object> PRIMITIVE_DEFAULTS = Map.of(
+        boolean.class, false, byte.class, (byte) 0, short.class, (short) 0, char.class, (char) 0,
+        int.class, 0, long.class, 0L, float.class, 0f, double.class, 0.0);
+
+    // One shared block data per material, so equal states are the same instance like on a server
+    private static final Map<Material, BlockData> BLOCK_DATA = new ConcurrentHashMap<>();
+
+    private BenchmarkStubs() {
+    }
+
+    /**
+     * Creates a plugin that only provides a name, a logger and the given config
+     */
+    static Plugin plugin(YamlConfiguration config) {
+        Logger logger = Logger.getLogger("IceRings");
+        return proxy(Plugin.class, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "getName":
+                    return "IceRings";
+                case "getConfig":
+                    return config;
+                case "getLogger":
+                    return logger;
+                default:
+                    return objectMethod(proxy, method, args);
+            }
+        });
+    }
+
+    /**
+     * Creates a config with the plugin defaults that matter to the benchmarked code
+     */
+    static YamlConfiguration config() {
+        YamlConfiguration config = new YamlConfiguration();
+        config.set("ice-rings.sphere-radius", 5);
+        config.set("performance.apply-physics", false);
+        return config;
+    }
+
+    /**
+     * Gets the default block data of a material
+     */
+    static BlockData blockData(Material material) {
+        return BLOCK_DATA.computeIfAbsent(material, type -> lenient(BlockData.class, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "getMaterial":
+                    return type;
+                case "getAsString":
+                    return "minecraft:" + type.name().toLowerCase(Locale.ROOT);
+                case "clone":
+                    return proxy;
+                default:
+                    return UNHANDLED;
+            }
+        }));
+    }
+
+    /**
+     * Parses block data written by BlockData.getAsString
+     */
+    static BlockData blockData(String value) {
+        String name = value.substring(value.indexOf(':') + 1);
+        int states = name.indexOf('[');
+        Material material = Material.getMaterial((states < 0 ? name : name.substring(0, states)).toUpperCase(Locale.ROOT));
+        if (material == null) {
+            throw new IllegalArgumentException("Could not parse data: " + value);
+        }
+        return blockData(material);
+    }
+
+    static Location location(World world, int x, int y, int z) {
+        return new Location(world, x, y, z);
+    }
+
+    /**
+     * A flat world: stone below the surface, grass on it and air above.
+     * Terrain is computed from the coordinates, so nothing is stored and writes are only counted.
+     */
+    static final class StubWorld implements InvocationHandler {
+
+        private final UUID worldId = UUID.randomUUID();
+        private final World world = proxy(World.class, this);
+        private long writes;
+
+        World world() {
+            return world;
+        }
+
+        UUID getUID() {
+            return worldId;
+        }
+
+        long getWrites() {
+            return writes;
+        }
+
+        static Material terrainAt(int y) {
+            if (y < SURFACE_Y) {
+                return Material.STONE;
+            }
+            return y == SURFACE_Y ? Material.SHORT_GRASS : Material.AIR;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) {
+            switch (method.getName()) {
+                case "getUID":
+                    return worldId;
+                case "getName":
+                    return "world";
+                case "getBlockAt":
+                    if (args.length == 3) {
+                        return new StubBlock(this, (Integer) args[0], (Integer) args[1], (Integer) args[2]).block;
+                    }
+                    Location location = (Location) args[0];
+                    return new StubBlock(this, location.getBlockX(), location.getBlockY(), location.getBlockZ()).block;
+                default:
+                    return objectMethod(proxy, method, args);
+            }
+        }
+    }
+
+    /**
+     * A block view into a stub world
+     */
+    private static final class StubBlock implements InvocationHandler {
+
+        private final StubWorld world;
+        private final int x;
+        private final int y;
+        private final int z;
+        private final Block block;
+
+        StubBlock(StubWorld world, int x, int y, int z) {
+            this.world = world;
+            this.x = x;
+            this.y = y;
+            this.z = z;
+            this.block = proxy(Block.class, this);
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) {
+            switch (method.getName()) {
+                case "getX":
+                    return x;
+                case "getY":
+                    return y;
+                case "getZ":
+                    return z;
+                case "getWorld":
+                    return world.world;
+                case "getType":
+                    return StubWorld.terrainAt(y);
+                case "getBlockData":
+                    return blockData(StubWorld.terrainAt(y));
+                case "setType":
+                case "setBlockData":
+                    world.writes++;
+                    return null;
+                case "getLocation":
+                    return new Location(world.world, x, y, z);
+                default:
+                    return objectMethod(proxy, method, args);
+            }
+        }
+    }
+
+    static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return type.cast(Proxy.newProxyInstance(BenchmarkStubs.class.getClassLoader(), new Class<?>[] {type}, handler));
+    }
+
+    /**
+     * Creates a proxy that answers every call the handler returns UNHANDLED for with a harmless default:
+     * zero, false, an empty string or collection, or another lenient proxy for interface types
+     */
+    static <T> T lenient(Class<T> type, InvocationHandler handler) {
+        return proxy(type, (proxy, method, args) -> {
+            Object result = handler.invoke(proxy, method, args);
+            return result == UNHANDLED ? defaultValue(proxy, method, args) : result;
+        });
+    }
+
+    /**
+     * Creates a proxy that answers every call with a default
+     */
+    static <T> T lenient(Class<T> type) {
+        return lenient(type, (proxy, method, args) -> UNHANDLED);
+    }
+
+    private static Object defaultValue(Object proxy, Method method, Object[] args) {
+        if (method.getDeclaringClass() == Object.class) {
+            return objectMethod(proxy, method, args);
+        }
+
+        Class<?> type = method.getReturnType();
+        if (type == void.class || type == Object.class) {
+            return null;
+        }
+        if (type.isPrimitive()) {
+            return PRIMITIVE_DEFAULTS.get(type);
+        }
+        if (type == String.class) {
+            return "";
+        }
+        if (type.isAssignableFrom(ArrayList.class)) {
+            return new ArrayList<>();
+        }
+        if (type.isAssignableFrom(HashSet.class)) {
+            return new HashSet<>();
+        }
+        if (type.isAssignableFrom(HashMap.class)) {
+            return new HashMap<>();
+        }
+        return type.isInterface() ? lenient(type) : null;
+    }
+
+    /**
+     * Handles the java.lang.Object methods of a proxy, every other call is unsupported
+     */
+    static Object objectMethod(Object proxy, Method method, Object[] args) {
+        switch (method.getName()) {
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            case "equals":
+                return proxy == args[0];
+            case "toString":
+                return "Stub" + proxy.getClass().getInterfaces()[0].getSimpleName();
+            default:
+                throw new UnsupportedOperationException(method.getDeclaringClass().getSimpleName() + "." + method.getName());
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package top.sanscraft.icerings.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import top.sanscraft.icerings.sphere.SphereBlockIndex;
+import top.sanscraft.icerings.utils.SphereShellCache;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the sphere lookups done by the block break and entity explode listeners,
+ * against a block index holding the given number of live spheres.
+ * Mirrors the index work of IceRingsListener without the Bukkit event objects around it.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ListenerLookupBenchmark {
+
+    private static final int SPHERE_RADIUS = 5;
+    // Spheres sit on a grid with a gap between neighbours
+    private static final int SPACING = SPHERE_RADIUS * 2 + 4;
+    private static final int QUERIES = 4096;
+    private static final int EXPLOSIONS = 64;
+
+    @Param({"1", "100", "1000", "10000"})
+    public int sphereCount;
+
+    private final SphereBlockIndex blockIndex = new SphereBlockIndex();
+    private final UUID worldId = UUID.randomUUID();
+    private final UUID emptyWorldId = UUID.randomUUID();
+    private int gridSize;
+
+    // Break positions as x, y, z triples, half on a shell and half anywhere near the spheres
+    private int[] breakQueries;
+    private int breakCursor;
+
+    @Setup
+    public void setup() {
+        gridSize = (int) Math.ceil(Math.sqrt(sphereCount));
+        int[] shell = SphereShellCache.getShell(SPHERE_RADIUS);
+        for (int handle = 1; handle <= sphereCount; handle++) {
+            int centerX = centerX(handle);
+            int centerZ = centerZ(handle);
+            for (int slot = 0; slot < shell.length; slot++) {
+                int offset = shell[slot];
+                blockIndex.put(worldId,
+                    centerX + SphereShellCache.unpackX(offset),
+                    BenchmarkStubs.SURFACE_Y + SphereShellCache.unpackY(offset),
+                    centerZ + SphereShellCache.unpackZ(offset),
+                    SphereBlockIndex.cell(handle, slot, 1 + slot % 3));
+            }
+        }
+
+        Random random = new Random(42);
+        int extent = gridSize * SPACING;
+        breakQueries = new int[QUERIES * 3];
+        for (int i = 0; i < QUERIES; i++) {
+            if (i % 2 == 0) {
+                int handle = 1 + random.nextInt(sphereCount);
+                int offset = shell[random.nextInt(shell.length)];
+                breakQueries[i * 3] = centerX(handle) + SphereShellCache.unpackX(offset);
+                breakQueries[i * 3 + 1] = BenchmarkStubs.SURFACE_Y + SphereShellCache.unpackY(offset);
+                breakQueries[i * 3 + 2] = centerZ(handle) + SphereShellCache.unpackZ(offset);
+            } else {
+                breakQueries[i * 3] = random.nextInt(extent);
+                breakQueries[i * 3 + 1] = BenchmarkStubs.SURFACE_Y - SPHERE_RADIUS + random.nextInt(SPHERE_RADIUS * 2 + 1);
+                breakQueries[i * 3 + 2] = random.nextInt(extent);
+            }
+        }
+    }
+
+    /**
+     * Block lists of explosions next to sphere shells, swept over the explosion size
+     */
+    @State(Scope.Thread)
+    public static class Explosions {
+
+        /** Radius of the block ball destroyed by an explosion, a TNT blast is about 4 */
+        @Param({"2", "4", "8"})
+        public int explosionRadius;
+
+        // Blocks of each explosion as x, y, z triples
+        private int[][] blocks;
+        private int cursor;
+
+        @Setup
+        public void setup(ListenerLookupBenchmark spheres) {
+            Random random = new Random(7);
+            blocks = new int[EXPLOSIONS][];
+            for (int i = 0; i < EXPLOSIONS; i++) {
+                // Centered on the shell's outer face so the blast takes out part of it
+                int handle = 1 + random.nextInt(spheres.sphereCount);
+                blocks[i] = ball(spheres.centerX(handle) + SPHERE_RADIUS + 1, BenchmarkStubs.SURFACE_Y,
+                    spheres.centerZ(handle), explosionRadius);
+            }
+        }
+
+        int[] next() {
+            int[] next = blocks[cursor];
+            cursor = (cursor + 1) % EXPLOSIONS;
+            return next;
+        }
+    }
+
+    /**
+     * Break handler: one index lookup, then the stage of the cell when it is a sphere block
+     */
+    @Benchmark
+    public int blockBreak() {
+        int i = breakCursor;
+        breakCursor = (breakCursor + 3) % breakQueries.length;
+        long cell = blockIndex.get(worldId, breakQueries[i], breakQueries[i + 1], breakQueries[i + 2]);
+        if (cell == SphereBlockIndex.NO_CELL || SphereBlockIndex.isGhost(cell)) {
+            return 0;
+        }
+        return SphereBlockIndex.stage(cell);
+    }
+
+    /**
+     * Explode handler: a lookup for every block in the explosion, counting the blocks that are protected
+     */
+    @Benchmark
+    public int entityExplode(Explosions explosions) {
+        int[] blocks = explosions.next();
+        if (!blockIndex.hasBlocks(worldId)) {
+            return 0;
+        }
+
+        int protectedBlocks = 0;
+        for (int i = 0; i < blocks.length; i += 3) {
+            long cell = blockIndex.get(worldId, blocks[i], blocks[i + 1], blocks[i + 2]);
+            if (cell != SphereBlockIndex.NO_CELL && SphereBlockIndex.stage(cell) == 1) {
+                protectedBlocks++;
+            }
+        }
+        return protectedBlocks;
+    }
+
+    /**
+     * Explode handler in a world without spheres, which should be rejected before looking at any block
+     */
+    @Benchmark
+    public int entityExplodeEmptyWorld(Explosions explosions) {
+        int[] blocks = explosions.next();
+        if (!blockIndex.hasBlocks(emptyWorldId)) {
+            return 0;
+        }
+        return blocks.length;
+    }
+
+    private int centerX(int handle) {
+        return ((handle - 1) % gridSize) * SPACING;
+    }
+
+    private int centerZ(int handle) {
+        return ((handle - 1) / gridSize) * SPACING;
+    }
+
+    /**
+     * Gets every block within the radius of a point, as x, y, z triples
+     */
+    private static int[] ball(int centerX, int centerY, int centerZ, int radius) {
+        int[] blocks = new int[64];
+        int count = 0;
+        for (int x = -radius; x <= radius; x++) {
+            for (int y = -radius; y <= radius; y++) {
+                for (int z = -radius; z <= radius; z++) {
+                    if (x * x + y * y + z * z > radius * radius) {
+                        continue;
+                    }
+                    if (count + 3 > blocks.length) {
+                        blocks = Arrays.copyOf(blocks, blocks.length * 2);
+                    }
+                    blocks[count++] = centerX + x;
+                    blocks[count++] = centerY + y;
+                    blocks[count++] = centerZ + z;
+                }
+            }
+        }
+        return Arrays.copyOf(blocks, count);
+    }
+}
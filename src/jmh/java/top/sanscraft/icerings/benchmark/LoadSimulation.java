@@ -0,0 +1,550 @@
+package top.sanscraft.icerings.benchmark;
+
+import org.bukkit.ExplosionResult;
+import org.bukkit.Location;
+import org.bukkit.Material;
+import org.bukkit.block.Block;
+import org.bukkit.block.BlockFace;
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.Player;
+import org.bukkit.event.Event;
+import org.bukkit.event.block.BlockBreakEvent;
+import org.bukkit.event.block.BlockPlaceEvent;
+import org.bukkit.event.entity.EntityExplodeEvent;
+import org.bukkit.event.player.PlayerInteractEvent;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.inventory.EquipmentSlot;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.plugin.PluginDescriptionFile;
+import org.bukkit.plugin.java.JavaPluginLoader;
+import top.sanscraft.icerings.IceRings;
+import top.sanscraft.icerings.metrics.Histogram;
+import top.sanscraft.icerings.metrics.HistogramSnapshot;
+import top.sanscraft.icerings.metrics.IceRingsMetrics;
+import top.sanscraft.icerings.utils.IceRingsUtils;
+import top.sanscraft.icerings.utils.SphereShellCache;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Headless load simulator: runs the real plugin on a SimulatedServer and replays a scripted workload
+ * of players placing spheres, mining shells, TNT chains and fireball volleys. Reports the main-thread
+ * time and allocation of every tick, and the peak memory held by tracked sphere state.
+ *
+ * Usage: LoadSimulation [--scenario mixed|place,mine,tnt,fireball] [--players N] [--ticks N]
+ *                       [--seed N] [--memory-every TICKS] [--set config.path=value]... [--verbose]
+ */
+public final class LoadSimulation {
+
+    private static final int PLAYERS_PER_ROW = 16;
+    private static final int PLAYER_SPACING = 64;
+    private static final double NANOS_PER_MILLI = 1_000_000.0;
+    private static final long TICK_BUDGET_NANOS = 50_000_000L;
+
+    // Workload rates
+    private static final int PLACE_INTERVAL_TICKS = 200;
+    private static final double MINE_CHANCE_PER_TICK = 0.25;
+    private static final int TNT_INTERVAL_TICKS = 100;
+    private static final int TNT_CHAIN_LENGTH = 5;
+    private static final int TNT_FUSE_STEP_TICKS = 2;
+    private static final int FIREBALL_INTERVAL_TICKS = 200;
+    private static final int FIREBALL_VOLLEY_SIZE = 8;
+    // Hits a shell block takes to break: two stage changes, then the break
+    private static final int HITS_TO_BREAK = 3;
+
+    /**
+     * Player actions a scenario can include; every scenario places spheres
+     */
+    enum Action {
+        PLACE,
+        MINE,
+        TNT,
+        FIREBALL
+    }
+
+    private final Options options;
+    private final Random random;
+    private final SimulatedServer server;
+    private final SimulatedWorld world;
+    private final IceRings plugin;
+    private final List<Player> players = new ArrayList<>();
+    // The shell block each player is mining and how often they hit it, by player index
+    private final List<Block> miningTargets = new ArrayList<>();
+    private int[] miningHits;
+    private boolean ghostShells;
+    private ItemStack trigger;
+    private int radius;
+    private long sphereLifetimeTicks;
+
+    // Spheres placed by the workload that may still be alive
+    private final List<PlacedSphere> placedSpheres = new ArrayList<>();
+    private final List<ScheduledExplosion> scheduledExplosions = new ArrayList<>();
+
+    // Main-thread cost of the plugin's work in the current tick
+    private long tickNanos;
+    private long tickBytes;
+
+    private final Histogram tickTime = new Histogram();
+    private final Histogram tickAllocation = new Histogram();
+    private long slowTicks;
+    private long totalBytes;
+    private long peakLiveSpheres;
+    private long peakTrackedBlocks;
+    private long peakPendingBlocks;
+    private long peakRetainedHeap;
+    private int changedBlocksAtPeakHeap;
+    private long baselineHeap;
+
+    private long spheresPlaced;
+    private long placementsRejected;
+    private long blocksMined;
+    private long miningHitCount;
+    private long explosions;
+
+    private LoadSimulation(Options options, File dataFolder) {
+        this.options = options;
+        this.random = new Random(options.seed);
+        this.server = new SimulatedServer(options.verbose);
+        this.world = server.createWorld("world");
+        PluginDescriptionFile description = new PluginDescriptionFile("IceRings", "simulation", IceRings.class.getName());
+        this.plugin = new SimulatedIceRings(new JavaPluginLoader(server.server()), description, dataFolder,
+            new File(dataFolder, "IceRings.jar"));
+    }
+
+    public static void main(String[] args) throws IOException {
+        Options options = Options.parse(args);
+        Path dataFolder = Files.createTempDirectory("icerings-simulation");
+        try {
+            new LoadSimulation(options, dataFolder.toFile()).run();
+        } finally {
+            try (Stream<Path> files = Files.walk(dataFolder)) {
+                files.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+            }
+        }
+    }
+
+    private void run() {
+        // Loading the config before enabling lets overrides reach every component's settings
+        options.config.forEach((path, value) -> plugin.getConfig().set(path, value));
+        sphereLifetimeTicks = plugin.getConfig().getInt("ice-rings.duration-seconds", 30) * 20L;
+        ghostShells = plugin.getConfig().getBoolean("performance.ghost-shells", false);
+
+        long start = System.nanoTime();
+        plugin.onEnable();
+        long enableNanos = System.nanoTime() - start;
+        radius = plugin.getSettings().getSphereRadius(); // As clamped by the plugin
+
+        trigger = plugin.getIceRingsUtils().createSpecialBlueIce(1);
+        miningHits = new int[options.players];
+        for (int i = 0; i < options.players; i++) {
+            int x = (i % PLAYERS_PER_ROW) * PLAYER_SPACING;
+            int z = (i / PLAYERS_PER_ROW) * PLAYER_SPACING;
+            Player player = world.addPlayer("Player" + i, x, BenchmarkStubs.SURFACE_Y + 1, z);
+            players.add(player);
+            miningTargets.add(null);
+            dispatch(new PlayerJoinEvent(player, ""));
+        }
+        baselineHeap = usedHeapAfterGc();
+
+        for (long tick = 1; tick <= options.ticks; tick++) {
+            tickNanos = 0;
+            tickBytes = 0;
+
+            measure(server::tick);
+            runWorkload(tick);
+
+            tickTime.record(tickNanos);
+            tickAllocation.record(tickBytes);
+            totalBytes += tickBytes;
+            if (tickNanos > TICK_BUDGET_NANOS) {
+                slowTicks++;
+            }
+            sampleState(tick);
+        }
+
+        start = System.nanoTime();
+        plugin.onDisable();
+        long disableNanos = System.nanoTime() - start;
+        server.shutdown();
+
+        report(enableNanos, disableNanos);
+    }
+
+    private void runWorkload(long tick) {
+        if (tick % 20 == 0) {
+            placedSpheres.removeIf(sphere -> tick - sphere.tick > sphereLifetimeTicks);
+        }
+
+        for (int i = 0; i < players.size(); i++) {
+            Player player = players.get(i);
+            // Placements are staggered so players don't all act on the same tick
+            if ((tick + (long) i * PLACE_INTERVAL_TICKS / players.size()) % PLACE_INTERVAL_TICKS == 0) {
+                placeSphere(player, tick);
+            }
+            if (options.actions.contains(Action.MINE) && random.nextDouble() < MINE_CHANCE_PER_TICK) {
+                mineShell(i, player);
+            }
+        }
+
+        if (options.actions.contains(Action.TNT) && tick % TNT_INTERVAL_TICKS == 0) {
+            scheduleTntChain(tick);
+        }
+        if (options.actions.contains(Action.FIREBALL) && tick % FIREBALL_INTERVAL_TICKS == 0) {
+            fireVolley();
+        }
+
+        for (int i = scheduledExplosions.size() - 1; i >= 0; i--) {
+            ScheduledExplosion explosion = scheduledExplosions.get(i);
+            if (explosion.tick <= tick) {
+                scheduledExplosions.remove(i);
+                explode(false, explosion.x, explosion.y, explosion.z);
+            }
+        }
+    }
+
+    /**
+     * A player places a sphere trigger somewhere around their spot
+     */
+    private void placeSphere(Player player, long tick) {
+        Location spot = player.getLocation();
+        int x = spot.getBlockX() + random.nextInt(33) - 16;
+        int y = BenchmarkStubs.SURFACE_Y + 1;
+        int z = spot.getBlockZ() + random.nextInt(33) - 16;
+        if (world.getType(x, y, z) != Material.AIR) {
+            return; // Can't place into a sphere shell or another trigger
+        }
+
+        world.setType(x, y, z, Material.BLUE_ICE);
+        Block placed = world.getBlockAt(x, y, z);
+        BlockPlaceEvent event = new BlockPlaceEvent(placed, placed.getState(), world.getBlockAt(x, y - 1, z),
+            trigger, player, true, EquipmentSlot.HAND);
+        dispatch(event);
+
+        if (event.isCancelled()) {
+            world.setType(x, y, z, Material.AIR);
+            placementsRejected++;
+        } else {
+            placedSpheres.add(new PlacedSphere(x, y, z, tick));
+            spheresPlaced++;
+        }
+    }
+
+    /**
+     * A player hits a shell block, sticking with it until it breaks.
+     * Ghost blocks are only on the client, so hitting one is a left click instead of a block break.
+     */
+    private void mineShell(int playerIndex, Player player) {
+        Block target = miningTargets.get(playerIndex);
+        if (target == null || (ghostShells ? miningHits[playerIndex] >= HITS_TO_BREAK : !IceRingsUtils.isSphereGlass(target.getType()))) {
+            target = randomShellBlock();
+            miningTargets.set(playerIndex, target);
+            miningHits[playerIndex] = 0;
+            if (target == null) {
+                return;
+            }
+        }
+        miningHits[playerIndex]++;
+        miningHitCount++;
+
+        if (ghostShells) {
+            dispatch(new PlayerInteractEvent(player, org.bukkit.event.block.Action.LEFT_CLICK_BLOCK, null, target, BlockFace.UP));
+            return;
+        }
+        BlockBreakEvent event = new BlockBreakEvent(target, player);
+        dispatch(event);
+        if (!event.isCancelled()) {
+            world.setType(target.getX(), target.getY(), target.getZ(), Material.AIR);
+            miningTargets.set(playerIndex, null);
+            blocksMined++;
+        }
+    }
+
+    /**
+     * Queues a row of TNT along a sphere's side, each one going off a couple of ticks after the last
+     */
+    private void scheduleTntChain(long tick) {
+        if (placedSpheres.isEmpty()) {
+            return;
+        }
+        PlacedSphere sphere = placedSpheres.get(random.nextInt(placedSpheres.size()));
+        for (int i = 0; i < TNT_CHAIN_LENGTH; i++) {
+            scheduledExplosions.add(new ScheduledExplosion(tick + (long) i * TNT_FUSE_STEP_TICKS,
+                sphere.x + radius + 1, sphere.y, sphere.z + (i - TNT_CHAIN_LENGTH / 2) * 3));
+        }
+    }
+
+    /**
+     * Fires a volley of fireballs that each hit a random shell block
+     */
+    private void fireVolley() {
+        for (int i = 0; i < FIREBALL_VOLLEY_SIZE; i++) {
+            Block target = randomShellBlock();
+            if (target != null) {
+                explode(true, target.getX() + 0.5, target.getY() + 0.5, target.getZ() + 0.5);
+            }
+        }
+    }
+
+    /**
+     * Sets off an explosion, destroying every non-air block in its radius the plugin leaves in the block list
+     */
+    private void explode(boolean fireball, double x, double y, double z) {
+        Entity entity = world.spawnExplosive(fireball, x, y, z);
+        int blastRadius = fireball ? 1 : 4;
+        List<Block> blocks = new ArrayList<>();
+        int cx = (int) Math.floor(x);
+        int cy = (int) Math.floor(y);
+        int cz = (int) Math.floor(z);
+        for (int dx = -blastRadius; dx <= blastRadius; dx++) {
+            for (int dy = -blastRadius; dy <= blastRadius; dy++) {
+                for (int dz = -blastRadius; dz <= blastRadius; dz++) {
+                    if (dx * dx + dy * dy + dz * dz <= blastRadius * blastRadius
+                            && world.getType(cx + dx, cy + dy, cz + dz) != Material.AIR) {
+                        blocks.add(world.getBlockAt(cx + dx, cy + dy, cz + dz));
+                    }
+                }
+            }
+        }
+
+        EntityExplodeEvent event = new EntityExplodeEvent(entity, new Location(world.world(), x, y, z), blocks,
+            fireball ? 1.0f : 0.25f, ExplosionResult.DESTROY);
+        dispatch(event);
+        if (!event.isCancelled()) {
+            for (Block block : event.blockList()) {
+                world.setType(block.getX(), block.getY(), block.getZ(), Material.AIR);
+            }
+        }
+        explosions++;
+    }
+
+    /**
+     * Picks a random block that is still sphere glass on the shell of a live sphere
+     */
+    private Block randomShellBlock() {
+        if (placedSpheres.isEmpty()) {
+            return null;
+        }
+        int[] shell = SphereShellCache.getShell(radius);
+        for (int attempt = 0; attempt < 4; attempt++) {
+            PlacedSphere sphere = placedSpheres.get(random.nextInt(placedSpheres.size()));
+            int offset = shell[random.nextInt(shell.length)];
+            int x = sphere.x + SphereShellCache.unpackX(offset);
+            int y = sphere.y + SphereShellCache.unpackY(offset);
+            int z = sphere.z + SphereShellCache.unpackZ(offset);
+            if (ghostShells || IceRingsUtils.isSphereGlass(world.getType(x, y, z))) {
+                return world.getBlockAt(x, y, z);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Passes an event to the plugin, counting the time and allocation against the current tick
+     */
+    private void dispatch(Event event) {
+        measure(() -> server.callEvent(event));
+    }
+
+    private void measure(Runnable work) {
+        long bytes = allocatedBytes();
+        long start = System.nanoTime();
+        work.run();
+        tickNanos += System.nanoTime() - start;
+        tickBytes += allocatedBytes() - bytes;
+    }
+
+    private void sampleState(long tick) {
+        IceRingsMetrics metrics = plugin.getMetrics();
+        peakLiveSpheres = Math.max(peakLiveSpheres, metrics.getLiveSpheres());
+        peakTrackedBlocks = Math.max(peakTrackedBlocks, metrics.getTrackedBlocks());
+        peakPendingBlocks = Math.max(peakPendingBlocks, metrics.getPendingBlocks());
+
+        if (tick % options.memoryEvery == 0) {
+            long retained = usedHeapAfterGc() - baselineHeap;
+            if (retained > peakRetainedHeap) {
+                peakRetainedHeap = retained;
+                changedBlocksAtPeakHeap = world.getChangedBlocks();
+            }
+        }
+    }
+
+    private void report(long enableNanos, long disableNanos) {
+        HistogramSnapshot ticks = tickTime.snapshot(NANOS_PER_MILLI);
+        HistogramSnapshot allocation = tickAllocation.snapshot(1024.0);
+        double simulatedSeconds = options.ticks / 20.0;
+        IceRingsMetrics metrics = plugin.getMetrics();
+
+        System.out.println();
+        System.out.println("IceRings load simulation: actions=" + options.actions + " players=" + options.players
+            + " ticks=" + options.ticks + " (" + simulatedSeconds + "s simulated) seed=" + options.seed);
+        System.out.printf("Enable %.1f ms, disable %.1f ms%n", enableNanos / NANOS_PER_MILLI, disableNanos / NANOS_PER_MILLI);
+        System.out.println();
+        System.out.println("Tick time:        " + ticks.format("ms"));
+        System.out.println("                  " + slowTicks + " tick(s) over the 50 ms budget");
+        if (allocatedBytes() >= 0) {
+            System.out.println("Allocation/tick:  " + allocation.format("KB"));
+            System.out.printf("                  %.1f MB total, %.2f MB per simulated second%n",
+                totalBytes / 1048576.0, totalBytes / 1048576.0 / simulatedSeconds);
+        } else {
+            System.out.println("Allocation/tick:  not supported by this JVM");
+        }
+        System.out.println("Tracked state:    peak " + peakLiveSpheres + " live spheres, " + peakTrackedBlocks
+            + " tracked blocks, " + peakPendingBlocks + " pending block writes");
+        System.out.printf("Retained heap:    peak %.2f MB over the baseline (includes %d changed blocks of the simulated world)%n",
+            peakRetainedHeap / 1048576.0, changedBlocksAtPeakHeap);
+        System.out.println();
+        System.out.println("Workload:         " + spheresPlaced + " spheres placed (" + placementsRejected + " rejected), "
+            + miningHitCount + " mining hits (" + blocksMined + " blocks broken), " + explosions + " explosions");
+        System.out.println("World:            " + world.getBlockWrites() + " block writes, "
+            + world.getBlockChangesSent() + " ghost block changes sent");
+        System.out.println();
+        System.out.println("Plugin metrics:");
+        System.out.println("  Sphere build:   " + metrics.getSphereBuildTime().format("us"));
+        System.out.println("  Sphere restore: " + metrics.getSphereRestoreTime().format("us"));
+        System.out.println("  Block place:    " + metrics.getBlockPlaceTime().format("us"));
+        System.out.println("  Block break:    " + metrics.getBlockBreakTime().format("us"));
+        System.out.println("  Entity explode: " + metrics.getEntityExplodeTime().format("us"));
+        System.out.println();
+        System.out.println("Times and allocation cover the plugin's work on the main thread, including calls into the stub");
+        System.out.println("server, but not building the simulated events. Async journal writes are not included.");
+    }
+
+    private static long allocatedBytes() {
+        java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (threads instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean allocation = (com.sun.management.ThreadMXBean) threads;
+            if (allocation.isThreadAllocatedMemorySupported() && allocation.isThreadAllocatedMemoryEnabled()) {
+                return allocation.getCurrentThreadAllocatedBytes();
+            }
+        }
+        return -1;
+    }
+
+    private static long usedHeapAfterGc() {
+        System.gc();
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    private static final class PlacedSphere {
+        private final int x;
+        private final int y;
+        private final int z;
+        private final long tick;
+
+        PlacedSphere(int x, int y, int z, long tick) {
+            this.x = x;
+            this.y = y;
+            this.z = z;
+            this.tick = tick;
+        }
+    }
+
+    private static final class ScheduledExplosion {
+        private final long tick;
+        private final double x;
+        private final double y;
+        private final double z;
+
+        ScheduledExplosion(long tick, double x, double y, double z) {
+            this.tick = tick;
+            this.x = x;
+            this.y = y;
+            this.z = z;
+        }
+    }
+
+    /**
+     * The plugin, created through the initialization constructor meant for running outside a server
+     */
+    private static final class SimulatedIceRings extends IceRings {
+        SimulatedIceRings(JavaPluginLoader loader, PluginDescriptionFile description, File dataFolder, File file) {
+            super(loader, description, dataFolder, file);
+        }
+    }
+
+    /**
+     * Command line options
+     */
+    private static final class Options {
+        private Set<Action> actions = EnumSet.allOf(Action.class);
+        private int players = 20;
+        private long ticks = 6000;
+        private long seed = 42;
+        private int memoryEvery = 200;
+        private boolean verbose;
+        private final Map<String, Object> config = new LinkedHashMap<>();
+
+        static Options parse(String[] args) {
+            Options options = new Options();
+            for (int i = 0; i < args.length; i++) {
+                String arg = args[i];
+                switch (arg) {
+                    case "--scenario":
+                        options.actions = parseScenario(args[++i]);
+                        break;
+                    case "--players":
+                        options.players = Integer.parseInt(args[++i]);
+                        break;
+                    case "--ticks":
+                        options.ticks = Long.parseLong(args[++i]);
+                        break;
+                    case "--seed":
+                        options.seed = Long.parseLong(args[++i]);
+                        break;
+                    case "--memory-every":
+                        options.memoryEvery = Math.max(1, Integer.parseInt(args[++i]));
+                        break;
+                    case "--set":
+                        String setting = args[++i];
+                        int equals = setting.indexOf('=');
+                        if (equals <= 0) {
+                            throw new IllegalArgumentException("Expected --set path=value, got " + setting);
+                        }
+                        options.config.put(setting.substring(0, equals), parseValue(setting.substring(equals + 1)));
+                        break;
+                    case "--verbose":
+                        options.verbose = true;
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Unknown option " + arg);
+                }
+            }
+            return options;
+        }
+
+        private static Set<Action> parseScenario(String scenario) {
+            if (scenario.equalsIgnoreCase("mixed")) {
+                return EnumSet.allOf(Action.class);
+            }
+            Set<Action> actions = EnumSet.of(Action.PLACE);
+            for (String name : scenario.split(",")) {
+                actions.add(Action.valueOf(name.trim().toUpperCase()));
+            }
+            return actions;
+        }
+
+        private static Object parseValue(String value) {
+            if (value.equalsIgnoreCase("true") || value.equalsIgnoreCase("false")) {
+                return Boolean.parseBoolean(value);
+            }
+            try {
+                return Integer.parseInt(value);
+            } catch (NumberFormatException e) {
+                return value;
+            }
+        }
+    }
+}
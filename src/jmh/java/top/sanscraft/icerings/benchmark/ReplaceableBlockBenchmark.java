@@ -0,0 +1,79 @@
+package top.sanscraft.icerings.benchmark;
+
+import org.bukkit.Material;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import top.sanscraft.icerings.utils.ReplaceableBlockMatcher;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the replaceable-block check done for every shell block, and of compiling the rules on reload.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReplaceableBlockBenchmark {
+
+    private static final int SAMPLES = 4096;
+
+    /** defaults = empty config list, list = a typical configured list, inverse = the same list in inverse mode */
+    @Param({"defaults", "list", "inverse"})
+    public String rules;
+
+    private List<String> blockNames;
+    private boolean inverseMode;
+    private ReplaceableBlockMatcher matcher;
+    private Material[] samples;
+    private int cursor;
+
+    @Setup
+    public void setup() {
+        blockNames = rules.equals("defaults") ? Collections.emptyList()
+            : Arrays.asList("AIR", "CAVE_AIR", "WATER", "LAVA", "GRASS", "FERN", "FLOWER", "SNOW", "VINE");
+        inverseMode = rules.equals("inverse");
+        matcher = ReplaceableBlockMatcher.compile(blockNames, inverseMode);
+
+        // A random mix of every block type, so the lookup can't be predicted
+        List<Material> blocks = new ArrayList<>();
+        for (Material material : Material.values()) {
+            if (material.isBlock() && !material.isLegacy()) {
+                blocks.add(material);
+            }
+        }
+        Random random = new Random(42);
+        samples = new Material[SAMPLES];
+        for (int i = 0; i < SAMPLES; i++) {
+            samples[i] = blocks.get(random.nextInt(blocks.size()));
+        }
+    }
+
+    @Benchmark
+    public boolean canReplace() {
+        cursor = (cursor + 1) & (SAMPLES - 1);
+        return matcher.canReplace(samples[cursor]);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public ReplaceableBlockMatcher compile() {
+        return ReplaceableBlockMatcher.compile(blockNames, inverseMode);
+    }
+}
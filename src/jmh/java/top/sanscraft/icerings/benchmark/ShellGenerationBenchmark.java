@@ -0,0 +1,85 @@
+package top.sanscraft.icerings.benchmark;
+
+import org.bukkit.Location;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import top.sanscraft.icerings.config.IceRingsSettings;
+import top.sanscraft.icerings.sphere.SphereBlockIndex;
+import top.sanscraft.icerings.sphere.SphereData;
+import top.sanscraft.icerings.sphere.SphereRegistry;
+import top.sanscraft.icerings.utils.IceRingsUtils;
+import top.sanscraft.icerings.utils.SphereShellCache;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of writing one sphere shell: walking the cached offsets, the replaceable check,
+ * the block write and indexing each placed block, as SphereBuildJob does per slice.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ShellGenerationBenchmark {
+
+    @Param({"3", "5", "8", "16", "32"})
+    public int radius;
+
+    private BenchmarkStubs.StubWorld world;
+    private IceRingsUtils utils;
+    private SphereRegistry registry;
+    private Location center;
+    private UUID ownerId;
+
+    @Setup
+    public void setup() {
+        world = new BenchmarkStubs.StubWorld();
+        YamlConfiguration config = BenchmarkStubs.config();
+        utils = new IceRingsUtils(BenchmarkStubs.plugin(config), IceRingsSettings.load(config));
+        registry = new SphereRegistry();
+        center = BenchmarkStubs.location(world.world(), 0, BenchmarkStubs.SURFACE_Y, 0);
+        ownerId = UUID.randomUUID();
+    }
+
+    /**
+     * Looks up the shell offsets for the radius, which is a cache hit after the first sphere
+     */
+    @Benchmark
+    public int shellOffsets() {
+        return SphereShellCache.getShell(radius).length;
+    }
+
+    /**
+     * Builds a whole sphere shell into a fresh block index
+     */
+    @Benchmark
+    public int buildShell() {
+        SphereData sphere = registry.create(ownerId, center, radius, false);
+        SphereBlockIndex blockIndex = new SphereBlockIndex();
+        UUID worldId = world.getUID();
+
+        for (int offset : SphereShellCache.getShell(radius)) {
+            int slot = utils.placeShellBlock(sphere, world.world(), offset);
+            if (slot >= 0) {
+                blockIndex.put(worldId, sphere.getBlockX(slot), sphere.getBlockY(slot), sphere.getBlockZ(slot),
+                    SphereBlockIndex.cell(sphere.getHandle(), slot, 1));
+            }
+        }
+
+        registry.remove(sphere);
+        return blockIndex.size();
+    }
+}
@@ -0,0 +1,420 @@
+package top.sanscraft.icerings.benchmark;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Material;
+import org.bukkit.NamespacedKey;
+import org.bukkit.Server;
+import org.bukkit.World;
+import org.bukkit.command.ConsoleCommandSender;
+import org.bukkit.entity.Player;
+import org.bukkit.event.Cancellable;
+import org.bukkit.event.Event;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.Listener;
+import org.bukkit.inventory.ItemFactory;
+import org.bukkit.inventory.meta.ItemMeta;
+import org.bukkit.persistence.PersistentDataContainer;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.plugin.PluginManager;
+import org.bukkit.scheduler.BukkitScheduler;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.logging.ConsoleHandler;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A single-threaded stand-in for the Bukkit server used by the load simulator.
+ * Sync tasks only run when the simulator calls tick(), events are dispatched to registered
+ * listeners by reflection, and async tasks run on a small thread pool.
+ */
+final class SimulatedServer {
+
+    private static final long MILLIS_PER_TICK = 50;
+
+    private final Logger logger = Logger.getLogger("IceRingsSimulation");
+    private final Server server;
+    private final Map<UUID, SimulatedWorld> worlds = new LinkedHashMap<>();
+
+    // Sync tasks in the order they were scheduled
+    private final List<Task> tasks = new ArrayList<>();
+    private final ScheduledExecutorService asyncExecutor = Executors.newScheduledThreadPool(2, runnable -> {
+        Thread thread = new Thread(runnable, "Simulated-Async");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private long currentTick;
+    private int nextTaskId = 1;
+
+    private final List<RegisteredHandler> registeredHandlers = new ArrayList<>();
+    private final Map<Class<?>, RegisteredHandler[]> handlersByEvent = new HashMap<>();
+
+    SimulatedServer(boolean verbose) {
+        ConsoleHandler handler = new ConsoleHandler();
+        handler.setLevel(verbose ? Level.INFO : Level.WARNING);
+        logger.setUseParentHandlers(false);
+        logger.addHandler(handler);
+
+        BukkitScheduler scheduler = BenchmarkStubs.lenient(BukkitScheduler.class, this::invokeScheduler);
+        PluginManager pluginManager = BenchmarkStubs.lenient(PluginManager.class, this::invokePluginManager);
+        ItemFactory itemFactory = BenchmarkStubs.lenient(ItemFactory.class, SimulatedServer::invokeItemFactory);
+        ConsoleCommandSender console = BenchmarkStubs.lenient(ConsoleCommandSender.class);
+
+        server = BenchmarkStubs.lenient(Server.class, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "getLogger":
+                    return logger;
+                case "getName":
+                    return "SimulatedServer";
+                case "getVersion":
+                case "getBukkitVersion":
+                    return "simulated";
+                case "getScheduler":
+                    return scheduler;
+                case "getPluginManager":
+                    return pluginManager;
+                case "getItemFactory":
+                    return itemFactory;
+                case "getConsoleSender":
+                    return console;
+                case "getWorld":
+                    return getWorld(args[0]);
+                case "getWorlds":
+                    List<World> loaded = new ArrayList<>();
+                    worlds.values().forEach(world -> loaded.add(world.world()));
+                    return loaded;
+                case "getPlayer":
+                    return getPlayer(args[0]);
+                case "getOnlinePlayers":
+                    List<Player> online = new ArrayList<>();
+                    worlds.values().forEach(world -> online.addAll(world.getPlayers()));
+                    return online;
+                case "getViewDistance":
+                    return 10;
+                case "createBlockData":
+                    return args[0] instanceof Material
+                        ? BenchmarkStubs.blockData((Material) args[0]) : BenchmarkStubs.blockData((String) args[0]);
+                case "isPrimaryThread":
+                    return true;
+                default:
+                    return BenchmarkStubs.UNHANDLED;
+            }
+        });
+        Bukkit.setServer(server);
+    }
+
+    Server server() {
+        return server;
+    }
+
+    Logger getLogger() {
+        return logger;
+    }
+
+    SimulatedWorld createWorld(String name) {
+        SimulatedWorld world = new SimulatedWorld(name);
+        worlds.put(world.getUID(), world);
+        return world;
+    }
+
+    private World getWorld(Object key) {
+        for (SimulatedWorld world : worlds.values()) {
+            if (key.equals(world.getUID()) || key.equals(world.world().getName())) {
+                return world.world();
+            }
+        }
+        return null;
+    }
+
+    private Player getPlayer(Object key) {
+        for (SimulatedWorld world : worlds.values()) {
+            for (Player player : world.getPlayers()) {
+                if (key.equals(player.getUniqueId()) || key.equals(player.getName())) {
+                    return player;
+                }
+            }
+        }
+        return null;
+    }
+
+    // Scheduler
+
+    /**
+     * Runs one server tick: every sync task that is due, in scheduling order.
+     * Tasks scheduled while the tick runs wait for the next one, as on a real server.
+     */
+    void tick() {
+        currentTick++;
+        int count = tasks.size();
+        for (int i = 0; i < count; i++) {
+            Task task = tasks.get(i);
+            if (task.cancelled || task.nextRun > currentTick) {
+                continue;
+            }
+            try {
+                task.runnable.run();
+            } catch (RuntimeException e) {
+                logger.log(Level.WARNING, "Task " + task.taskId + " threw an exception", e);
+            }
+            if (task.period > 0) {
+                task.nextRun = currentTick + task.period;
+            } else {
+                task.cancelled = true;
+            }
+        }
+        tasks.removeIf(task -> task.cancelled);
+    }
+
+    long getCurrentTick() {
+        return currentTick;
+    }
+
+    int getPendingTasks() {
+        return tasks.size();
+    }
+
+    void shutdown() {
+        tasks.clear();
+        asyncExecutor.shutdownNow();
+    }
+
+    private Object invokeScheduler(Object proxy, Method method, Object[] args) {
+        String name = method.getName();
+        switch (name) {
+            case "cancelTask":
+                cancelTask((Integer) args[0]);
+                return null;
+            case "cancelTasks":
+                tasks.forEach(task -> task.cancel());
+                return null;
+            case "isQueued":
+            case "isCurrentlyRunning":
+                return tasks.stream().anyMatch(task -> task.taskId == (Integer) args[0] && !task.cancelled);
+            default:
+                break;
+        }
+        if (!name.startsWith("runTask") && !name.startsWith("schedule")) {
+            return BenchmarkStubs.UNHANDLED;
+        }
+
+        // runTask(plugin, task), runTaskLater(plugin, task, delay), runTaskTimer(plugin, task, delay, period) and friends
+        long delay = args.length > 2 ? (Long) args[2] : 0;
+        long period = args.length > 3 ? (Long) args[3] : 0;
+        Task task = new Task(nextTaskId++, period);
+        task.runnable = toRunnable(args[1], task);
+        if (name.contains("Async")) {
+            task.scheduleAsync(delay);
+        } else {
+            task.nextRun = currentTick + Math.max(1, delay);
+            tasks.add(task);
+        }
+
+        if (method.getReturnType() == int.class) {
+            return task.taskId;
+        }
+        return method.getReturnType() == void.class ? null : task.handle;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Runnable toRunnable(Object task, Task owner) {
+        if (task instanceof Runnable) {
+            return (Runnable) task;
+        }
+        Consumer<BukkitTask> consumer = (Consumer<BukkitTask>) task;
+        return () -> consumer.accept(owner.handle);
+    }
+
+    private void cancelTask(int taskId) {
+        for (Task task : tasks) {
+            if (task.taskId == taskId) {
+                task.cancel();
+            }
+        }
+    }
+
+    private final class Task {
+        private final int taskId;
+        private final long period;
+        private final BukkitTask handle;
+        private Runnable runnable;
+        private long nextRun;
+        private volatile boolean cancelled;
+        private ScheduledFuture<?> future;
+
+        Task(int taskId, long period) {
+            this.taskId = taskId;
+            this.period = period;
+            this.handle = BenchmarkStubs.lenient(BukkitTask.class, (proxy, method, args) -> {
+                switch (method.getName()) {
+                    case "getTaskId":
+                        return taskId;
+                    case "isCancelled":
+                        return cancelled;
+                    case "isSync":
+                        return future == null;
+                    case "cancel":
+                        cancel();
+                        return null;
+                    default:
+                        return BenchmarkStubs.UNHANDLED;
+                }
+            });
+        }
+
+        void scheduleAsync(long delay) {
+            if (period > 0) {
+                future = asyncExecutor.scheduleAtFixedRate(runnable, delay * MILLIS_PER_TICK, period * MILLIS_PER_TICK, TimeUnit.MILLISECONDS);
+            } else {
+                future = asyncExecutor.schedule(runnable, delay * MILLIS_PER_TICK, TimeUnit.MILLISECONDS);
+            }
+        }
+
+        void cancel() {
+            cancelled = true;
+            if (future != null) {
+                future.cancel(false);
+            }
+        }
+    }
+
+    // Events
+
+    /**
+     * Calls every registered handler for the event, in priority order
+     */
+    void callEvent(Event event) {
+        RegisteredHandler[] handlers = handlersByEvent.computeIfAbsent(event.getClass(), this::resolveHandlers);
+        for (RegisteredHandler handler : handlers) {
+            if (handler.ignoreCancelled && event instanceof Cancellable && ((Cancellable) event).isCancelled()) {
+                continue;
+            }
+            try {
+                handler.method.invoke(handler.listener, event);
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException(e);
+            } catch (InvocationTargetException e) {
+                logger.log(Level.SEVERE, "Could not pass " + event.getEventName() + " to " + handler.method, e.getCause());
+            }
+        }
+    }
+
+    private RegisteredHandler[] resolveHandlers(Class<?> eventClass) {
+        return registeredHandlers.stream()
+            .filter(handler -> handler.method.getParameterTypes()[0].isAssignableFrom(eventClass))
+            .sorted(Comparator.comparing(handler -> handler.annotation.priority()))
+            .toArray(RegisteredHandler[]::new);
+    }
+
+    private Object invokePluginManager(Object proxy, Method method, Object[] args) {
+        switch (method.getName()) {
+            case "registerEvents":
+                registerEvents((Listener) args[0]);
+                return null;
+            case "callEvent":
+                callEvent((Event) args[0]);
+                return null;
+            case "getPlugin":
+                return null; // No soft dependencies are installed
+            case "getPlugins":
+                return new Plugin[0];
+            default:
+                return BenchmarkStubs.UNHANDLED;
+        }
+    }
+
+    private void registerEvents(Listener listener) {
+        for (Method method : listener.getClass().getDeclaredMethods()) {
+            EventHandler annotation = method.getAnnotation(EventHandler.class);
+            if (annotation == null || method.getParameterCount() != 1 || !Event.class.isAssignableFrom(method.getParameterTypes()[0])) {
+                continue;
+            }
+            method.setAccessible(true);
+            registeredHandlers.add(new RegisteredHandler(listener, method, annotation));
+        }
+        handlersByEvent.clear();
+    }
+
+    private static final class RegisteredHandler {
+        private final Listener listener;
+        private final Method method;
+        private final EventHandler annotation;
+        private final boolean ignoreCancelled;
+
+        RegisteredHandler(Listener listener, Method method, EventHandler annotation) {
+            this.listener = listener;
+            this.method = method;
+            this.annotation = annotation;
+            this.ignoreCancelled = annotation.ignoreCancelled();
+        }
+    }
+
+    // Items
+
+    private static Object invokeItemFactory(Object proxy, Method method, Object[] args) {
+        switch (method.getName()) {
+            case "getItemMeta":
+                return createItemMeta();
+            case "isApplicable":
+                return true;
+            case "asMetaFor":
+                return args[0];
+            case "updateMaterial":
+                return args[1];
+            case "equals":
+                return args.length == 2 ? args[0] == args[1] : BenchmarkStubs.UNHANDLED;
+            default:
+                return BenchmarkStubs.UNHANDLED;
+        }
+    }
+
+    /**
+     * Creates item meta whose persistent data container only remembers which keys are set
+     */
+    private static ItemMeta createItemMeta() {
+        Set<NamespacedKey> keys = new HashSet<>();
+        PersistentDataContainer container = BenchmarkStubs.lenient(PersistentDataContainer.class, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "set":
+                    keys.add((NamespacedKey) args[0]);
+                    return null;
+                case "has":
+                    return keys.contains(args[0]);
+                case "remove":
+                    keys.remove(args[0]);
+                    return null;
+                case "getKeys":
+                    return new HashSet<>(keys);
+                case "isEmpty":
+                    return keys.isEmpty();
+                default:
+                    return BenchmarkStubs.UNHANDLED;
+            }
+        });
+        return BenchmarkStubs.lenient(ItemMeta.class, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "getPersistentDataContainer":
+                    return container;
+                case "clone":
+                    return proxy;
+                default:
+                    return BenchmarkStubs.UNHANDLED;
+            }
+        });
+    }
+}
@@ -0,0 +1,334 @@
+package top.sanscraft.icerings.benchmark;
+
+import org.bukkit.Chunk;
+import org.bukkit.ChunkSnapshot;
+import org.bukkit.GameMode;
+import org.bukkit.Location;
+import org.bukkit.Material;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+import org.bukkit.block.BlockState;
+import org.bukkit.block.data.BlockData;
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.Fireball;
+import org.bukkit.entity.Player;
+import org.bukkit.entity.TNTPrimed;
+import top.sanscraft.icerings.utils.BlockKeys;
+import top.sanscraft.icerings.utils.LongLongHashMap;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * A flat world for the load simulator that keeps every block change, plus the players and
+ * explosive entities standing in it. Blocks, players and entities are lenient proxies.
+ */
+final class SimulatedWorld {
+
+    private final UUID worldId = UUID.randomUUID();
+    private final String name;
+    private final World world;
+    private static final Material[] MATERIALS = Material.values();
+
+    // Material ordinal + 1 of the blocks that differ from the flat terrain, by chunk key and packed position
+    private final Map<Long, LongLongHashMap> changedChunks = new HashMap<>();
+    private int changedBlocks;
+    private final List<Player> players = new ArrayList<>();
+    private long blockWrites;
+    private long blockChangesSent;
+
+    SimulatedWorld(String name) {
+        this.name = name;
+        this.world = BenchmarkStubs.lenient(World.class, this::invokeWorld);
+    }
+
+    World world() {
+        return world;
+    }
+
+    UUID getUID() {
+        return worldId;
+    }
+
+    Collection<Player> getPlayers() {
+        return players;
+    }
+
+    /**
+     * Gets the number of blocks written to the world so far
+     */
+    long getBlockWrites() {
+        return blockWrites;
+    }
+
+    /**
+     * Gets the number of client-side block changes sent to players so far
+     */
+    long getBlockChangesSent() {
+        return blockChangesSent;
+    }
+
+    /**
+     * Gets the number of blocks that differ from the flat terrain
+     */
+    int getChangedBlocks() {
+        return changedBlocks;
+    }
+
+    Material getType(int x, int y, int z) {
+        LongLongHashMap changed = changedChunks.get(BlockKeys.chunkOfBlock(x, z));
+        return typeAt(changed, x, y, z);
+    }
+
+    void setType(int x, int y, int z, Material type) {
+        long key = BlockKeys.block(x, y, z);
+        long chunkKey = BlockKeys.chunkOfBlock(x, z);
+        if (type == terrainAt(y)) {
+            LongLongHashMap changed = changedChunks.get(chunkKey);
+            if (changed != null && changed.remove(key) != 0) {
+                changedBlocks--;
+            }
+        } else if (changedChunks.computeIfAbsent(chunkKey, k -> new LongLongHashMap(64, 0L)).put(key, type.ordinal() + 1) == 0) {
+            changedBlocks++;
+        }
+        blockWrites++;
+    }
+
+    Block getBlockAt(int x, int y, int z) {
+        return new SimulatedBlock(x, y, z).block;
+    }
+
+    private static Material typeAt(LongLongHashMap changed, int x, int y, int z) {
+        long type = changed != null ? changed.get(BlockKeys.block(x, y, z)) : 0;
+        return type != 0 ? MATERIALS[(int) type - 1] : terrainAt(y);
+    }
+
+    private static Material terrainAt(int y) {
+        if (y < BenchmarkStubs.SURFACE_Y) {
+            return Material.STONE;
+        }
+        return y == BenchmarkStubs.SURFACE_Y ? Material.GRASS_BLOCK : Material.AIR;
+    }
+
+    private Chunk chunk(int chunkX, int chunkZ) {
+        return BenchmarkStubs.lenient(Chunk.class, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "getX":
+                    return chunkX;
+                case "getZ":
+                    return chunkZ;
+                case "getWorld":
+                    return world;
+                case "isLoaded":
+                    return true;
+                case "getChunkSnapshot":
+                    return snapshot(chunkX, chunkZ);
+                default:
+                    return BenchmarkStubs.UNHANDLED;
+            }
+        });
+    }
+
+    /**
+     * Copies a chunk's changed blocks into a snapshot that can be read from any thread
+     */
+    private ChunkSnapshot snapshot(int chunkX, int chunkZ) {
+        LongLongHashMap changed = changedChunks.get(BlockKeys.chunk(chunkX, chunkZ));
+        LongLongHashMap copied = new LongLongHashMap(changed != null ? changed.size() : 0, 0L);
+        if (changed != null) {
+            changed.forEach(copied::put);
+        }
+        return BenchmarkStubs.lenient(ChunkSnapshot.class, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "getX":
+                    return chunkX;
+                case "getZ":
+                    return chunkZ;
+                case "getWorldName":
+                    return name;
+                case "getBlockType":
+                case "getBlockData":
+                    Material type = typeAt(copied, (chunkX << 4) + (Integer) args[0], (Integer) args[1], (chunkZ << 4) + (Integer) args[2]);
+                    return method.getName().equals("getBlockType") ? type : BenchmarkStubs.blockData(type);
+                default:
+                    return BenchmarkStubs.UNHANDLED;
+            }
+        });
+    }
+
+    private Object invokeWorld(Object proxy, Method method, Object[] args) {
+        switch (method.getName()) {
+            case "getUID":
+                return worldId;
+            case "getName":
+                return name;
+            case "getBlockAt":
+                if (args.length == 3) {
+                    return getBlockAt((Integer) args[0], (Integer) args[1], (Integer) args[2]);
+                }
+                Location location = (Location) args[0];
+                return getBlockAt(location.getBlockX(), location.getBlockY(), location.getBlockZ());
+            case "isChunkLoaded":
+                return true;
+            case "getChunkAt":
+                return args.length == 2 ? chunk((Integer) args[0], (Integer) args[1]) : BenchmarkStubs.UNHANDLED;
+            case "getPlayers":
+                return new ArrayList<>(players);
+            case "getMinHeight":
+                return -64;
+            case "getMaxHeight":
+                return 320;
+            default:
+                return BenchmarkStubs.UNHANDLED;
+        }
+    }
+
+    /**
+     * Adds a player standing at the given block position
+     */
+    Player addPlayer(String playerName, int x, int y, int z) {
+        UUID playerId = UUID.nameUUIDFromBytes(playerName.getBytes());
+        Location location = new Location(world, x + 0.5, y, z + 0.5);
+        Player player = BenchmarkStubs.lenient(Player.class, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "getUniqueId":
+                    return playerId;
+                case "getName":
+                case "getDisplayName":
+                    return playerName;
+                case "getWorld":
+                    return world;
+                case "getLocation":
+                    return location.clone();
+                case "getGameMode":
+                    return GameMode.SURVIVAL;
+                case "isOnline":
+                case "isValid":
+                    return true;
+                case "hasPermission":
+                    // Simulated players are held to the sphere limits like regular players
+                    return !"icerings.bypass-limits".equals(args[0]);
+                case "sendBlockChanges":
+                    blockChangesSent += ((Collection<?>) args[0]).size();
+                    return null;
+                case "sendBlockChange":
+                    blockChangesSent++;
+                    return null;
+                default:
+                    return BenchmarkStubs.UNHANDLED;
+            }
+        });
+        players.add(player);
+        return player;
+    }
+
+    /**
+     * Creates a primed TNT or a fireball at the given position, with the vanilla yield
+     */
+    Entity spawnExplosive(boolean fireball, double x, double y, double z) {
+        Location location = new Location(world, x, y, z);
+        float yield = fireball ? 1.0f : 4.0f;
+        Class<? extends Entity> type = fireball ? Fireball.class : TNTPrimed.class;
+        return BenchmarkStubs.lenient(type, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "getYield":
+                    return yield;
+                case "getLocation":
+                    return location.clone();
+                case "getWorld":
+                    return world;
+                default:
+                    return BenchmarkStubs.UNHANDLED;
+            }
+        });
+    }
+
+    /**
+     * A view of one block position, equal to any other view of the same position
+     */
+    private final class SimulatedBlock {
+
+        private final int x;
+        private final int y;
+        private final int z;
+        private final Block block;
+
+        SimulatedBlock(int x, int y, int z) {
+            this.x = x;
+            this.y = y;
+            this.z = z;
+            this.block = BenchmarkStubs.lenient(Block.class, this::invoke);
+        }
+
+        private Object invoke(Object proxy, Method method, Object[] args) {
+            switch (method.getName()) {
+                case "getX":
+                    return x;
+                case "getY":
+                    return y;
+                case "getZ":
+                    return z;
+                case "getWorld":
+                    return world;
+                case "getType":
+                    return SimulatedWorld.this.getType(x, y, z);
+                case "setType":
+                    SimulatedWorld.this.setType(x, y, z, (Material) args[0]);
+                    return null;
+                case "getBlockData":
+                    return BenchmarkStubs.blockData(SimulatedWorld.this.getType(x, y, z));
+                case "setBlockData":
+                    SimulatedWorld.this.setType(x, y, z, ((BlockData) args[0]).getMaterial());
+                    return null;
+                case "getLocation":
+                    return args == null ? new Location(world, x, y, z) : BenchmarkStubs.UNHANDLED;
+                case "getState":
+                    return state(SimulatedWorld.this.getType(x, y, z));
+                case "hashCode":
+                    return Long.hashCode(BlockKeys.block(x, y, z));
+                case "equals":
+                    return args[0] instanceof Block && ((Block) args[0]).getWorld() == world
+                        && ((Block) args[0]).getX() == x && ((Block) args[0]).getY() == y && ((Block) args[0]).getZ() == z;
+                default:
+                    return BenchmarkStubs.UNHANDLED;
+            }
+        }
+
+        /**
+         * A detached snapshot of the block, changing its type doesn't touch the world
+         */
+        private BlockState state(Material initialType) {
+            Material[] type = {initialType};
+            return BenchmarkStubs.lenient(BlockState.class, (proxy, method, args) -> {
+                switch (method.getName()) {
+                    case "getType":
+                        return type[0];
+                    case "getBlockData":
+                        return BenchmarkStubs.blockData(type[0]);
+                    case "setType":
+                        type[0] = (Material) args[0];
+                        return null;
+                    case "getBlock":
+                        return block;
+                    case "getWorld":
+                        return world;
+                    case "getX":
+                        return x;
+                    case "getY":
+                        return y;
+                    case "getZ":
+                        return z;
+                    case "getLocation":
+                        return args == null ? new Location(world, x, y, z) : BenchmarkStubs.UNHANDLED;
+                    default:
+                        return BenchmarkStubs.UNHANDLED;
+                }
+            });
+        }
+    }
+}
@@ -1,6 +1,17 @@
 package top.sanscraft.icerings;
 
+import top.sanscraft.icerings.api.IceSphere;
+import top.sanscraft.icerings.api.IceSphereQuery;
+import top.sanscraft.icerings.config.ConfigWriter;
+import top.sanscraft.icerings.config.IceRingsSettings;
 import top.sanscraft.icerings.listeners.IceRingsListener;
+import top.sanscraft.icerings.logging.SphereLog;
+import top.sanscraft.icerings.metrics.IceRingsMetrics;
+import top.sanscraft.icerings.scheduler.SphereScheduler;
+import top.sanscraft.icerings.sphere.DeferredRestorations;
+import top.sanscraft.icerings.sphere.SphereJournal;
+import top.sanscraft.icerings.sphere.SpherePlanner;
+import top.sanscraft.icerings.sphere.SphereWorkQueue;
 import top.sanscraft.icerings.utils.IceRingsUtils;
 import top.sanscraft.icerings.utils.WorldGuardIntegration;
 import org.bukkit.Bukkit;
@@ -10,15 +21,44 @@ import org.bukkit.command.Command;
 import org.bukkit.command.CommandSender;
 import org.bukkit.entity.Player;
 import org.bukkit.inventory.ItemStack;
+import org.bukkit.plugin.PluginDescriptionFile;
+import org.bukkit.plugin.ServicePriority;
 import org.bukkit.plugin.java.JavaPlugin;
+import org.bukkit.plugin.java.JavaPluginLoader;
 
+import java.io.File;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.UUID;
+import java.util.logging.Level;
 
 public class IceRings extends JavaPlugin {
     
+    // How far from a sphere's shell /icerings lifetime finds it, in blocks
+    private static final double LIFETIME_REACH = 8.0;
+    
+    private volatile IceRingsSettings settings;
+    private ConfigWriter configWriter;
     private IceRingsUtils iceRingsUtils;
     private WorldGuardIntegration worldGuardIntegration;
     private IceRingsListener iceRingsListener;
+    private SphereScheduler sphereScheduler;
+    private SphereWorkQueue sphereWorkQueue;
+    private SpherePlanner spherePlanner;
+    private SphereJournal sphereJournal;
+    private DeferredRestorations deferredRestorations;
+    private IceRingsMetrics metrics;
+    private SphereLog sphereLog;
+
+    public IceRings() {
+    }
+    
+    /**
+     * Creates the plugin outside a server, used by the load simulator
+     */
+    protected IceRings(JavaPluginLoader loader, PluginDescriptionFile description, File dataFolder, File file) {
+        super(loader, description, dataFolder, file);
+    }
 
     @Override
     public void onEnable() {
@@ -27,14 +67,46 @@ public class IceRings extends JavaPlugin {
         
         // Save default config if it doesn't exist
         saveDefaultConfig();
+        settings = loadSettings();
+        configWriter = new ConfigWriter(this);
+        
+        // Start collecting metrics
+        metrics = new IceRingsMetrics(this);
+        metrics.registerMBean();
+        sphereLog = new SphereLog(this);
+        sphereLog.start();
         
         // Initialize utilities
-        iceRingsUtils = new IceRingsUtils(this);
-        worldGuardIntegration = new WorldGuardIntegration(this);
+        iceRingsUtils = new IceRingsUtils(this, settings);
+        worldGuardIntegration = new WorldGuardIntegration(this, settings);
+        sphereScheduler = SphereScheduler.create(this);
+        if (sphereScheduler.isRegionThreaded()) {
+            getLogger().info("Folia detected! Sphere work will run on region threads.");
+        }
+        sphereWorkQueue = new SphereWorkQueue(this, sphereScheduler);
+        sphereWorkQueue.start();
+        spherePlanner = new SpherePlanner(this, iceRingsUtils, sphereScheduler);
+        spherePlanner.start();
+        
+        // Restore spheres left behind by a crash, then start journaling
+        sphereJournal = new SphereJournal(this);
+        deferredRestorations = new DeferredRestorations(iceRingsUtils, sphereJournal);
+        int restoredSpheres = sphereJournal.replay(iceRingsUtils, deferredRestorations, sphereScheduler);
+        if (sphereScheduler.isRegionThreaded()) {
+            deferredRestorations.applyLoadedChunks(sphereScheduler);
+        }
+        if (restoredSpheres > 0) {
+            getLogger().info("Restored " + restoredSpheres + " ice sphere(s) left over from the last run.");
+        }
+        sphereJournal.open();
         
         // Register events
         registerEvents();
         
+        // Let other plugins look up live spheres
+        getServer().getServicesManager().register(IceSphereQuery.class, iceRingsListener.getQueryService(),
+            this, ServicePriority.Normal);
+        
         // Check WorldGuard integration
         if (worldGuardIntegration.isWorldGuardEnabled()) {
             getLogger().info("WorldGuard detected! Region restrictions are available.");
@@ -48,18 +120,148 @@ public class IceRings extends JavaPlugin {
 
     @Override
     public void onDisable() {
-        // Plugin shutdown logic
+        // Plugin shutdown logic; each step runs even if an earlier one failed
+        shutdownStep("unregister services", () -> getServer().getServicesManager().unregisterAll(this));
         if (iceRingsListener != null) {
-            iceRingsListener.cleanup();
+            shutdownStep("clean up spheres", iceRingsListener::cleanup);
+        }
+        if (sphereWorkQueue != null) {
+            shutdownStep("stop the work queue", sphereWorkQueue::stop);
+        }
+        if (spherePlanner != null) {
+            shutdownStep("stop the shell planner", spherePlanner::stop);
+        }
+        if (sphereJournal != null) {
+            shutdownStep("close the sphere journal", sphereJournal::close);
+        }
+        if (metrics != null) {
+            shutdownStep("unregister metrics", metrics::unregisterMBean);
+        }
+        if (configWriter != null) {
+            shutdownStep("save the config", configWriter::close);
+        }
+        if (sphereLog != null) {
+            shutdownStep("close the sphere log", sphereLog::close);
         }
         getLogger().info("IceRings plugin has been disabled!");
         Bukkit.getConsoleSender().sendMessage(ChatColor.RED + "[IceRings] Plugin unloaded!");
     }
 
+    /**
+     * Runs one shutdown step, logging a failure instead of letting it skip the steps after it
+     */
+    private void shutdownStep(String description, Runnable step) {
+        try {
+            step.run();
+        } catch (RuntimeException | LinkageError e) {
+            getLogger().log(Level.SEVERE, "Could not " + description + " while disabling", e);
+        }
+    }
+
     private void registerEvents() {
         // Register event listeners here
         iceRingsListener = new IceRingsListener(this);
         getServer().getPluginManager().registerEvents(iceRingsListener, this);
+        iceRingsListener.start();
+    }
+
+    /**
+     * Gets the current settings snapshot. Read it once and keep the reference
+     * while handling an event, so the values can't change halfway through.
+     */
+    public IceRingsSettings getSettings() {
+        return settings;
+    }
+    
+    /**
+     * Reads a settings snapshot from the config, logging anything wrong with it
+     */
+    private IceRingsSettings loadSettings() {
+        IceRingsSettings loaded = IceRingsSettings.load(getConfig());
+        for (String warning : loaded.getWarnings()) {
+            getLogger().warning(warning);
+        }
+        return loaded;
+    }
+    
+    /**
+     * Swaps in a new settings snapshot for the plugin and the components that read it
+     */
+    private void applySettings(IceRingsSettings newSettings) {
+        settings = newSettings;
+        iceRingsUtils.applySettings(newSettings);
+        worldGuardIntegration.applySettings(newSettings);
+    }
+    
+    /**
+     * Applies an edit made to the config in memory and queues it to be saved off the main thread
+     */
+    private void saveConfigEdit() {
+        applySettings(loadSettings());
+        configWriter.requestSave(getConfig());
+    }
+    
+    /**
+     * Gets the shared utilities instance
+     */
+    public IceRingsUtils getIceRingsUtils() {
+        return iceRingsUtils;
+    }
+    
+    /**
+     * Gets the shared WorldGuard integration instance
+     */
+    public WorldGuardIntegration getWorldGuardIntegration() {
+        return worldGuardIntegration;
+    }
+    
+    /**
+     * Gets the scheduler that runs sphere work on the thread owning it
+     */
+    public SphereScheduler getSphereScheduler() {
+        return sphereScheduler;
+    }
+    
+    /**
+     * Gets the queue that spreads sphere block writes over ticks
+     */
+    public SphereWorkQueue getSphereWorkQueue() {
+        return sphereWorkQueue;
+    }
+    
+    /**
+     * Gets the planner that reads new sphere shells from chunk snapshots off the server thread
+     */
+    public SpherePlanner getSpherePlanner() {
+        return spherePlanner;
+    }
+    
+    /**
+     * Gets the crash-recovery journal of live spheres
+     */
+    public SphereJournal getSphereJournal() {
+        return sphereJournal;
+    }
+    
+    /**
+     * Gets the sphere blocks waiting for their chunks to load before being restored
+     */
+    public DeferredRestorations getDeferredRestorations() {
+        return deferredRestorations;
+    }
+    
+    /**
+     * Gets the plugin's performance metrics
+     */
+    public IceRingsMetrics getMetrics() {
+        return metrics;
+    }
+    
+    /**
+     * Gets the sphere lifecycle log
+     */
+    public SphereLog getSphereLog() {
+        return sphereLog;
     }
 
     @Override
@@ -81,7 +283,13 @@ public class IceRings extends JavaPlugin {
                         sender.sendMessage(ChatColor.RED + "You don't have permission to reload the plugin!");
                         return true;
                     }
+                    // Write out pending edits first, so reading the file back doesn't undo them
+                    configWriter.flush();
                     reloadConfig();
+                    applySettings(loadSettings());
+                    sphereWorkQueue.loadSettings();
+                    sphereLog.loadSettings();
+                    iceRingsListener.reloadSettings();
                     sender.sendMessage(ChatColor.GREEN + "IceRings configuration reloaded!");
                     return true;
                     
@@ -99,6 +307,21 @@ public class IceRings extends JavaPlugin {
                     }
                     return handleBlocksCommand(sender, args);
                     
+                case "stats":
+                    if (!sender.hasPermission("icerings.admin")) {
+                        sender.sendMessage(ChatColor.RED + "You don't have permission to view plugin stats!");
+                        return true;
+                    }
+                    showStats(sender);
+                    return true;
+                    
+                case "lifetime":
+                    if (!sender.hasPermission("icerings.admin")) {
+                        sender.sendMessage(ChatColor.RED + "You don't have permission to change sphere lifetimes!");
+                        return true;
+                    }
+                    return handleLifetimeCommand(sender, args);
+                    
                 default:
                     sender.sendMessage(ChatColor.RED + "Unknown command. Use /icerings help for available commands");
                     return true;
@@ -120,9 +343,77 @@ public class IceRings extends JavaPlugin {
             sender.sendMessage(ChatColor.YELLOW + "/icerings blocks add <block> - Add a replaceable block");
             sender.sendMessage(ChatColor.YELLOW + "/icerings blocks remove <block> - Remove a replaceable block");
             sender.sendMessage(ChatColor.YELLOW + "/icerings blocks inverse [true|false] - Toggle inverse mode");
+            sender.sendMessage(ChatColor.YELLOW + "/icerings stats - Show performance statistics");
+            sender.sendMessage(ChatColor.YELLOW + "/icerings lifetime [seconds] - Show or set the nearest sphere's remaining time");
         }
     }
     
+    private void showStats(CommandSender sender) {
+        sender.sendMessage(ChatColor.GOLD + "=== IceRings Stats ===");
+        sender.sendMessage(ChatColor.YELLOW + "Live spheres: " + ChatColor.WHITE + metrics.getLiveSpheres() +
+            ChatColor.YELLOW + ", tracked blocks: " + ChatColor.WHITE + metrics.getTrackedBlocks());
+        sender.sendMessage(ChatColor.YELLOW + "Queue: " + ChatColor.WHITE + metrics.getPendingBlocks() +
+            ChatColor.YELLOW + " blocks in " + ChatColor.WHITE + metrics.getPendingJobs() +
+            ChatColor.YELLOW + " jobs, " + ChatColor.WHITE + metrics.getDeferredBlocks() +
+            ChatColor.YELLOW + " waiting for chunks");
+        sender.sendMessage(ChatColor.YELLOW + "Spheres created: " + ChatColor.WHITE + metrics.getSpheresCreated() +
+            ChatColor.YELLOW + ", removed: " + ChatColor.WHITE + metrics.getSpheresRemoved() +
+            ChatColor.YELLOW + ", rejected: " + ChatColor.WHITE + metrics.getSpheresRejected());
+        sender.sendMessage(ChatColor.YELLOW + "Sphere build: " + ChatColor.WHITE + metrics.getSphereBuildTime().format("us"));
+        sender.sendMessage(ChatColor.YELLOW + "Blocks per sphere: " + ChatColor.WHITE + metrics.getBlocksPerSphere().format("blocks"));
+        sender.sendMessage(ChatColor.YELLOW + "Sphere restore: " + ChatColor.WHITE + metrics.getSphereRestoreTime().format("us"));
+        sender.sendMessage(ChatColor.YELLOW + "Block break: " + ChatColor.WHITE + metrics.getBlockBreakTime().format("us"));
+        sender.sendMessage(ChatColor.YELLOW + "Entity explode: " + ChatColor.WHITE + metrics.getEntityExplodeTime().format("us"));
+        sender.sendMessage(ChatColor.YELLOW + "Block place: " + ChatColor.WHITE + metrics.getBlockPlaceTime().format("us"));
+    }
+    
+    private boolean handleLifetimeCommand(CommandSender sender, String[] args) {
+        // Usage: /icerings lifetime [seconds]
+        if (!(sender instanceof Player)) {
+            sender.sendMessage(ChatColor.RED + "Only players can change the lifetime of the sphere they are at!");
+            return true;
+        }
+        Player player = (Player) sender;
+        
+        // The nearest sphere whose shell is within reach of the player
+        List<IceSphere> nearby = iceRingsListener.getQueryService().spheresNear(player.getLocation(), LIFETIME_REACH);
+        if (nearby.isEmpty()) {
+            sender.sendMessage(ChatColor.RED + "There is no ice sphere near you!");
+            return true;
+        }
+        UUID sphereId = nearby.get(0).getSphereId();
+        
+        if (args.length < 2) {
+            long remaining = iceRingsListener.getRemainingTicks(sphereId);
+            if (remaining < 0) {
+                sender.sendMessage(ChatColor.YELLOW + "The nearest ice sphere is already melting.");
+            } else {
+                sender.sendMessage(ChatColor.YELLOW + "The nearest ice sphere melts in " + ChatColor.WHITE
+                    + (remaining + 19) / 20 + ChatColor.YELLOW + " second(s).");
+            }
+            return true;
+        }
+        
+        int seconds;
+        try {
+            seconds = Integer.parseInt(args[1]);
+        } catch (NumberFormatException e) {
+            sender.sendMessage(ChatColor.RED + "Invalid time! Please enter a number of seconds.");
+            return true;
+        }
+        if (seconds < 1) {
+            sender.sendMessage(ChatColor.RED + "Time must be at least 1 second!");
+            return true;
+        }
+        
+        if (iceRingsListener.setRemainingTicks(sphereId, seconds * 20L)) {
+            sender.sendMessage(ChatColor.GREEN + "The nearest ice sphere now melts in " + seconds + " second(s).");
+        } else {
+            sender.sendMessage(ChatColor.YELLOW + "The nearest ice sphere is already melting.");
+        }
+        return true;
+    }
+    
     private boolean handleGiveCommand(CommandSender sender, String[] args) {
         // Usage: /icerings give [player] [amount]
         Player targetPlayer = null;
@@ -163,9 +454,7 @@ public class IceRings extends JavaPlugin {
         targetPlayer.getInventory().addItem(specialBlueIce);
         
         // Send messages
-        String message = getConfig().getString("messages.special-ice-given", "&aYou have been given &b{amount} &aspecial blue ice!")
-            .replace("{amount}", String.valueOf(amount));
-        targetPlayer.sendMessage(ChatColor.translateAlternateColorCodes('&', message));
+        targetPlayer.sendMessage(settings.getSpecialIceGivenMessage().replace("{amount}", String.valueOf(amount)));
         
         if (!sender.equals(targetPlayer)) {
             sender.sendMessage(ChatColor.GREEN + "Given " + amount + " special blue ice to " + targetPlayer.getName());
@@ -182,8 +471,8 @@ public class IceRings extends JavaPlugin {
         
         switch (args[1].toLowerCase()) {
             case "list":
-                List<String> replaceableBlocks = getConfig().getStringList("ice-rings.replaceable-blocks");
-                boolean inverseMode = getConfig().getBoolean("ice-rings.inverse-replaceable-blocks", false);
+                List<String> replaceableBlocks = settings.getReplaceableBlockNames();
+                boolean inverseMode = settings.isInverseReplaceableBlocks();
                 
                 sender.sendMessage(ChatColor.GOLD + "=== Replaceable Blocks ===");
                 sender.sendMessage(ChatColor.AQUA + "Inverse Mode: " + (inverseMode ? ChatColor.GREEN + "ENABLED" : ChatColor.RED + "DISABLED"));
@@ -210,7 +499,7 @@ public class IceRings extends JavaPlugin {
                 }
                 
                 String blockToAdd = args[2].toUpperCase();
-                List<String> currentBlocks = getConfig().getStringList("ice-rings.replaceable-blocks");
+                List<String> currentBlocks = new ArrayList<>(settings.getReplaceableBlockNames());
                 
                 if (currentBlocks.contains(blockToAdd)) {
                     sender.sendMessage(ChatColor.RED + "Block " + blockToAdd + " is already in the replaceable blocks list!");
@@ -226,7 +515,7 @@ public class IceRings extends JavaPlugin {
                 
                 currentBlocks.add(blockToAdd);
                 getConfig().set("ice-rings.replaceable-blocks", currentBlocks);
-                saveConfig();
+                saveConfigEdit();
                 
                 sender.sendMessage(ChatColor.GREEN + "Added " + blockToAdd + " to replaceable blocks list!");
                 return true;
@@ -238,7 +527,7 @@ public class IceRings extends JavaPlugin {
                 }
                 
                 String blockToRemove = args[2].toUpperCase();
-                List<String> blocksToModify = getConfig().getStringList("ice-rings.replaceable-blocks");
+                List<String> blocksToModify = new ArrayList<>(settings.getReplaceableBlockNames());
                 
                 if (!blocksToModify.contains(blockToRemove)) {
                     sender.sendMessage(ChatColor.RED + "Block " + blockToRemove + " is not in the replaceable blocks list!");
@@ -247,7 +536,7 @@ public class IceRings extends JavaPlugin {
                 
                 blocksToModify.remove(blockToRemove);
                 getConfig().set("ice-rings.replaceable-blocks", blocksToModify);
-                saveConfig();
+                saveConfigEdit();
                 
                 sender.sendMessage(ChatColor.GREEN + "Removed " + blockToRemove + " from replaceable blocks list!");
                 return true;
@@ -255,7 +544,7 @@ public class IceRings extends JavaPlugin {
             case "inverse":
                 if (args.length < 3) {
                     // Just show current status
-                    boolean currentInverse = getConfig().getBoolean("ice-rings.inverse-replaceable-blocks", false);
+                    boolean currentInverse = settings.isInverseReplaceableBlocks();
                     sender.sendMessage(ChatColor.GOLD + "Inverse Mode Status: " + 
                         (currentInverse ? ChatColor.GREEN + "ENABLED" : ChatColor.RED + "DISABLED"));
                     sender.sendMessage(ChatColor.YELLOW + "Usage: /icerings blocks inverse <true|false>");
@@ -275,7 +564,7 @@ public class IceRings extends JavaPlugin {
                 }
                 
                 getConfig().set("ice-rings.inverse-replaceable-blocks", newInverseState);
-                saveConfig();
+                saveConfigEdit();
                 
                 sender.sendMessage(ChatColor.GREEN + "Inverse mode " + 
                     (newInverseState ? "ENABLED" : "DISABLED") + "!");
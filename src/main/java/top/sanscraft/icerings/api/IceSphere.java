@@ -0,0 +1,94 @@
+package top.sanscraft.icerings.api;
+
+import org.bukkit.util.BoundingBox;
+
+import java.util.UUID;
+
+/**
+ * Read-only view of a live ice sphere, as returned by {@link IceSphereQuery}.
+ * Only holds what never changes over the sphere's life, so it is safe to keep and share between threads.
+ */
+public final class IceSphere {
+
+    private final UUID sphereId;
+    private final UUID ownerId;
+    private final UUID worldId;
+    private final int centerX;
+    private final int centerY;
+    private final int centerZ;
+    private final int radius;
+    private final boolean ghost;
+    private final long creationTime;
+
+    public IceSphere(UUID sphereId, UUID ownerId, UUID worldId, int centerX, int centerY, int centerZ,
+                     int radius, boolean ghost, long creationTime) {
+        this.sphereId = sphereId;
+        this.ownerId = ownerId;
+        this.worldId = worldId;
+        this.centerX = centerX;
+        this.centerY = centerY;
+        this.centerZ = centerZ;
+        this.radius = radius;
+        this.ghost = ghost;
+        this.creationTime = creationTime;
+    }
+
+    public UUID getSphereId() {
+        return sphereId;
+    }
+
+    /**
+     * Gets the UUID of the player who placed the sphere
+     */
+    public UUID getOwnerId() {
+        return ownerId;
+    }
+
+    public UUID getWorldId() {
+        return worldId;
+    }
+
+    public int getCenterX() {
+        return centerX;
+    }
+
+    public int getCenterY() {
+        return centerY;
+    }
+
+    public int getCenterZ() {
+        return centerZ;
+    }
+
+    public int getRadius() {
+        return radius;
+    }
+
+    /**
+     * Checks if the sphere's shell is only shown to clients, rather than written to the world
+     */
+    public boolean isGhost() {
+        return ghost;
+    }
+
+    /**
+     * Gets when the sphere was created, in epoch milliseconds
+     */
+    public long getCreationTime() {
+        return creationTime;
+    }
+
+    /**
+     * Gets the box holding every block of the sphere's shell
+     */
+    public BoundingBox getBoundingBox() {
+        return new BoundingBox(centerX - radius, centerY - radius, centerZ - radius,
+            centerX + radius + 1, centerY + radius + 1, centerZ + radius + 1);
+    }
+
+    @Override
+    public String toString() {
+        return "IceSphere{id=" + sphereId + ", world=" + worldId + ", center=" + centerX + "," + centerY + "," + centerZ
+            + ", radius=" + radius + (ghost ? ", ghost" : "") + "}";
+    }
+}
@@ -0,0 +1,49 @@
+package top.sanscraft.icerings.api;
+
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+import org.bukkit.util.BoundingBox;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Answers where the live ice spheres are, for other plugins.
+ * Registered with Bukkit's ServicesManager while IceRings is enabled:
+ * <pre>
+ * IceSphereQuery query = Bukkit.getServicesManager().load(IceSphereQuery.class);
+ * </pre>
+ * Sphere lookups use an in-memory index of sphere bounds and never read the world.
+ * Block lookups use the plugin's own block index, also without reading the world.
+ */
+public interface IceSphereQuery {
+
+    /**
+     * Checks if a block is part of a live sphere's shell, ghost shells included.
+     * Must be called on the thread owning the block: the main thread, or its region's thread on Folia.
+     */
+    boolean isSphereBlock(World world, int x, int y, int z);
+
+    /**
+     * Checks if a block is part of a live sphere's shell, ghost shells included.
+     * Must be called on the thread owning the block: the main thread, or its region's thread on Folia.
+     */
+    boolean isSphereBlock(Block block);
+
+    /**
+     * Gets the live spheres in a world whose shell bounds intersect a box. Can be called from any thread.
+     */
+    List<IceSphere> spheresIntersecting(World world, BoundingBox box);
+
+    /**
+     * Gets the live spheres whose shell comes within a distance of a location, nearest first.
+     * Can be called from any thread.
+     */
+    List<IceSphere> spheresNear(Location location, double distance);
+
+    /**
+     * Gets the live spheres placed by a player. Can be called from any thread.
+     */
+    List<IceSphere> spheresOwnedBy(UUID ownerId);
+}
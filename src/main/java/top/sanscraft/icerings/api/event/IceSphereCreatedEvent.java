@@ -0,0 +1,43 @@
+package top.sanscraft.icerings.api.event;
+
+import org.bukkit.entity.Player;
+import org.bukkit.event.Event;
+import org.bukkit.event.HandlerList;
+import top.sanscraft.icerings.api.IceSphere;
+
+/**
+ * Called once a sphere has been created and its shell queued to be built.
+ * The shell is written over the next ticks, so its blocks may not all be in place yet.
+ */
+public class IceSphereCreatedEvent extends Event {
+
+    private static final HandlerList HANDLERS = new HandlerList();
+
+    private final IceSphere sphere;
+    private final Player player;
+
+    public IceSphereCreatedEvent(IceSphere sphere, Player player) {
+        this.sphere = sphere;
+        this.player = player;
+    }
+
+    public IceSphere getSphere() {
+        return sphere;
+    }
+
+    /**
+     * Gets the player who placed the sphere
+     */
+    public Player getPlayer() {
+        return player;
+    }
+
+    @Override
+    public HandlerList getHandlers() {
+        return HANDLERS;
+    }
+
+    public static HandlerList getHandlerList() {
+        return HANDLERS;
+    }
+}
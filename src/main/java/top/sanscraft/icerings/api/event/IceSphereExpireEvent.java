@@ -0,0 +1,49 @@
+package top.sanscraft.icerings.api.event;
+
+import org.bukkit.event.Event;
+import org.bukkit.event.HandlerList;
+import top.sanscraft.icerings.api.IceSphere;
+
+/**
+ * Called when a sphere's life ends: either its time ran out and its blocks are about to be restored,
+ * or its last block was destroyed. Not called for spheres cleared when the plugin is disabled.
+ */
+public class IceSphereExpireEvent extends Event {
+
+    private static final HandlerList HANDLERS = new HandlerList();
+
+    /**
+     * Why a sphere ended
+     */
+    public enum Reason {
+        /** Its duration ran out, the original blocks are restored over the next ticks */
+        EXPIRED,
+        /** Every one of its blocks was broken or blown up */
+        DESTROYED
+    }
+
+    private final IceSphere sphere;
+    private final Reason reason;
+
+    public IceSphereExpireEvent(IceSphere sphere, Reason reason) {
+        this.sphere = sphere;
+        this.reason = reason;
+    }
+
+    public IceSphere getSphere() {
+        return sphere;
+    }
+
+    public Reason getReason() {
+        return reason;
+    }
+
+    @Override
+    public HandlerList getHandlers() {
+        return HANDLERS;
+    }
+
+    public static HandlerList getHandlerList() {
+        return HANDLERS;
+    }
+}
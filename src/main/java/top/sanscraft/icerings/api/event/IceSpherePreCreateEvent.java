@@ -0,0 +1,92 @@
+package top.sanscraft.icerings.api.event;
+
+import org.bukkit.Location;
+import org.bukkit.entity.Player;
+import org.bukkit.event.Cancellable;
+import org.bukkit.event.Event;
+import org.bukkit.event.HandlerList;
+import top.sanscraft.icerings.utils.SphereShellCache;
+
+/**
+ * Called when a player places special blue ice, before the sphere is created.
+ * Cancelling it leaves the ice in the player's hand without a message, so the canceller should explain.
+ * The placement can still be turned down after this by region checks, a full work queue or sphere limits,
+ * which all use the radius as set here.
+ */
+public class IceSpherePreCreateEvent extends Event implements Cancellable {
+
+    private static final HandlerList HANDLERS = new HandlerList();
+
+    private final Player player;
+    private final Location center;
+    private int radius;
+    private int durationSeconds;
+    private boolean cancelled;
+
+    public IceSpherePreCreateEvent(Player player, Location center, int radius, int durationSeconds) {
+        this.player = player;
+        this.center = center;
+        this.radius = radius;
+        this.durationSeconds = durationSeconds;
+    }
+
+    public Player getPlayer() {
+        return player;
+    }
+
+    /**
+     * Gets the block the sphere will be centered on
+     */
+    public Location getCenter() {
+        return center.clone();
+    }
+
+    public int getRadius() {
+        return radius;
+    }
+
+    /**
+     * Sets the radius of the sphere
+     * @throws IllegalArgumentException if the radius is below 1 or above the largest supported radius
+     */
+    public void setRadius(int radius) {
+        if (radius < 1 || radius > SphereShellCache.MAX_RADIUS) {
+            throw new IllegalArgumentException("Radius must be between 1 and " + SphereShellCache.MAX_RADIUS + ": " + radius);
+        }
+        this.radius = radius;
+    }
+
+    public int getDurationSeconds() {
+        return durationSeconds;
+    }
+
+    /**
+     * Sets how long the sphere lasts before its original blocks are restored
+     * @throws IllegalArgumentException if the duration is below 1 second
+     */
+    public void setDurationSeconds(int durationSeconds) {
+        if (durationSeconds < 1) {
+            throw new IllegalArgumentException("Duration must be at least 1 second: " + durationSeconds);
+        }
+        this.durationSeconds = durationSeconds;
+    }
+
+    @Override
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    @Override
+    public void setCancelled(boolean cancelled) {
+        this.cancelled = cancelled;
+    }
+
+    @Override
+    public HandlerList getHandlers() {
+        return HANDLERS;
+    }
+
+    public static HandlerList getHandlerList() {
+        return HANDLERS;
+    }
+}
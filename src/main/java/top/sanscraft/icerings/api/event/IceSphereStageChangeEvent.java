@@ -0,0 +1,108 @@
+package top.sanscraft.icerings.api.event;
+
+import org.bukkit.World;
+import org.bukkit.event.Event;
+import org.bukkit.event.HandlerList;
+import top.sanscraft.icerings.api.IceSphere;
+
+/**
+ * Called with a batch of sphere blocks in one world that changed durability stage or were destroyed.
+ * All blocks blown up by one explosion arrive as one event, right when it happens.
+ * Blocks hit by players are collected over a tick and arrive as one event per world at the end of it.
+ * Block i of the batch is at (getXs()[i], getYs()[i], getZs()[i]) and now has stage getStages()[i]:
+ * 2 (cyan), 3 (light blue) or {@link #DESTROYED}. The arrays belong to this event; don't modify them.
+ */
+public class IceSphereStageChangeEvent extends Event {
+
+    private static final HandlerList HANDLERS = new HandlerList();
+
+    /** Stage of a block that was destroyed and won't be restored */
+    public static final int DESTROYED = 0;
+
+    /**
+     * What changed the blocks
+     */
+    public enum Cause {
+        /** Players hitting or breaking sphere blocks */
+        HIT,
+        /** An explosion */
+        EXPLOSION
+    }
+
+    private final World world;
+    private final Cause cause;
+    private final int[] xs;
+    private final int[] ys;
+    private final int[] zs;
+    private final int[] stages;
+    private final IceSphere[] spheres;
+
+    /**
+     * All arrays must have the same length, one entry per block
+     */
+    public IceSphereStageChangeEvent(World world, Cause cause, int[] xs, int[] ys, int[] zs, int[] stages,
+                                     IceSphere[] spheres) {
+        this.world = world;
+        this.cause = cause;
+        this.xs = xs;
+        this.ys = ys;
+        this.zs = zs;
+        this.stages = stages;
+        this.spheres = spheres;
+    }
+
+    public World getWorld() {
+        return world;
+    }
+
+    public Cause getCause() {
+        return cause;
+    }
+
+    /**
+     * Gets the number of blocks in the batch
+     */
+    public int size() {
+        return xs.length;
+    }
+
+    public int[] getXs() {
+        return xs;
+    }
+
+    public int[] getYs() {
+        return ys;
+    }
+
+    public int[] getZs() {
+        return zs;
+    }
+
+    public int[] getStages() {
+        return stages;
+    }
+
+    /**
+     * Gets the sphere each block belongs to. A block shared by overlapping spheres is listed
+     * once, under the sphere that placed it first.
+     */
+    public IceSphere[] getSpheres() {
+        return spheres;
+    }
+
+    /**
+     * Checks if anything listens for this event, so batches are only collected when needed
+     */
+    public static boolean hasListeners() {
+        return HANDLERS.getRegisteredListeners().length > 0;
+    }
+
+    @Override
+    public HandlerList getHandlers() {
+        return HANDLERS;
+    }
+
+    public static HandlerList getHandlerList() {
+        return HANDLERS;
+    }
+}
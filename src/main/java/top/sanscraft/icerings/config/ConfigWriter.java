@@ -0,0 +1,105 @@
+package top.sanscraft.icerings.config;
+
+import org.bukkit.configuration.file.FileConfiguration;
+import org.bukkit.plugin.Plugin;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+
+/**
+ * Saves the plugin config off the server thread.
+ * The config is serialized when a save is requested, so the file always gets a consistent version,
+ * and writes are delayed briefly so a burst of edits ends up as a single write of the latest one.
+ */
+public class ConfigWriter {
+
+    // How long to wait for more edits before writing
+    private static final long COALESCE_MILLIS = 500L;
+
+    private final Plugin plugin;
+    private final File file;
+    private final ScheduledExecutorService writer;
+
+    // Latest serialized config not yet written, guarded by this
+    private String pending;
+    private boolean scheduled;
+    // Held from taking the pending contents until they are on disk, so an older version taken by
+    // one thread can never be written after a newer one taken by another
+    private final Object writeLock = new Object();
+
+    public ConfigWriter(Plugin plugin) {
+        this.plugin = plugin;
+        this.file = new File(plugin.getDataFolder(), "config.yml");
+        this.writer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "IceRings Config Writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Queues the config's current contents to be written to disk.
+     * Must be called on the thread that edits the config.
+     */
+    public void requestSave(FileConfiguration config) {
+        String contents = config.saveToString();
+        synchronized (this) {
+            pending = contents;
+            if (scheduled) {
+                return;
+            }
+            scheduled = true;
+        }
+        writer.schedule(this::writePending, COALESCE_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Writes any queued contents right away, e.g. before the config file is read back.
+     * Waits for a write already in progress, so the file holds the latest contents once this returns.
+     */
+    public void flush() {
+        writePending();
+    }
+
+    /**
+     * Writes any queued contents and stops the writer thread
+     */
+    public void close() {
+        writer.shutdownNow();
+        writePending();
+    }
+
+    private void writePending() {
+        synchronized (writeLock) {
+            String contents;
+            synchronized (this) {
+                contents = pending;
+                pending = null;
+                scheduled = false;
+            }
+            if (contents == null) {
+                return;
+            }
+
+            try {
+                File temp = new File(file.getParentFile(), file.getName() + ".tmp");
+                Files.write(temp.toPath(), contents.getBytes(StandardCharsets.UTF_8));
+                try {
+                    Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                }
+            } catch (IOException e) {
+                plugin.getLogger().log(Level.SEVERE, "Could not save config to " + file, e);
+            }
+        }
+    }
+}
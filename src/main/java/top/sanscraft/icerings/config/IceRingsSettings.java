@@ -0,0 +1,183 @@
+package top.sanscraft.icerings.config;
+
+import org.bukkit.ChatColor;
+import org.bukkit.configuration.ConfigurationSection;
+import top.sanscraft.icerings.utils.ReplaceableBlockMatcher;
+import top.sanscraft.icerings.utils.SphereShellCache;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Immutable snapshot of the settings read on every sphere placement.
+ * Built once per load or edit and swapped in whole, so a placement always sees one consistent
+ * version of the config without looking anything up in it. Messages have their colour codes
+ * translated up front; placeholders like {duration} are filled in when they are sent.
+ */
+public final class IceRingsSettings {
+
+    private final int sphereRadius;
+    private final int durationSeconds;
+    private final boolean ghostShells;
+    private final boolean applyPhysics;
+
+    private final List<String> replaceableBlockNames;
+    private final boolean inverseReplaceableBlocks;
+    private final ReplaceableBlockMatcher replaceableBlocks;
+
+    private final boolean regionChecksEnabled;
+    private final Set<String> allowedRegions;
+    private final boolean checkFullSphere;
+    private final long regionCacheMillis;
+
+    private final String iceSphereCreatedMessage;
+    private final String specialIceGivenMessage;
+    private final String regionNotAllowedMessage;
+    private final String queueFullMessage;
+    private final String sphereLimitMessage;
+    private final String sphereCooldownMessage;
+    private final String sphereBudgetMessage;
+
+    // Problems found while reading the config, for the plugin to log
+    private final List<String> warnings = new ArrayList<>();
+
+    private IceRingsSettings(ConfigurationSection config) {
+        int radius = config.getInt("ice-rings.sphere-radius", 5);
+        if (radius < 1 || radius > SphereShellCache.MAX_RADIUS) {
+            int clamped = Math.max(1, Math.min(radius, SphereShellCache.MAX_RADIUS));
+            warnings.add("ice-rings.sphere-radius must be between 1 and " + SphereShellCache.MAX_RADIUS
+                + ", using " + clamped + " instead of " + radius);
+            radius = clamped;
+        }
+        sphereRadius = radius;
+        durationSeconds = config.getInt("ice-rings.duration-seconds", 30);
+        ghostShells = config.getBoolean("performance.ghost-shells", false);
+        applyPhysics = config.getBoolean("performance.apply-physics", false);
+
+        replaceableBlockNames = Collections.unmodifiableList(new ArrayList<>(config.getStringList("ice-rings.replaceable-blocks")));
+        inverseReplaceableBlocks = config.getBoolean("ice-rings.inverse-replaceable-blocks", false);
+        replaceableBlocks = ReplaceableBlockMatcher.compile(replaceableBlockNames, inverseReplaceableBlocks);
+
+        regionChecksEnabled = config.getBoolean("worldguard.enabled", true);
+        allowedRegions = Collections.unmodifiableSet(new LinkedHashSet<>(config.getStringList("worldguard.allowed-regions")));
+        checkFullSphere = config.getBoolean("worldguard.check-full-sphere", false);
+        regionCacheMillis = Math.max(0, config.getInt("worldguard.cache-seconds", 30)) * 1000L;
+
+        iceSphereCreatedMessage = message(config, "ice-sphere-created",
+            "&bIce sphere created! It will last for &e{duration} &bseconds.");
+        specialIceGivenMessage = message(config, "special-ice-given",
+            "&aYou have been given &b{amount} &aspecial blue ice!");
+        regionNotAllowedMessage = message(config, "region-not-allowed",
+            "&cYou cannot place ice rings in this area!");
+        queueFullMessage = message(config, "queue-full",
+            "&cToo many ice spheres are forming right now, try again in a moment!");
+        sphereLimitMessage = message(config, "sphere-limit",
+            "&cYou already have &e{limit} &cactive ice spheres!");
+        sphereCooldownMessage = message(config, "sphere-cooldown",
+            "&cYou must wait &e{seconds} &cmore second(s) before placing another ice sphere!");
+        sphereBudgetMessage = message(config, "sphere-budget",
+            "&cThere are too many ice spheres right now, try again in a moment!");
+    }
+
+    /**
+     * Reads a snapshot of the settings from the plugin config
+     */
+    public static IceRingsSettings load(ConfigurationSection config) {
+        return new IceRingsSettings(config);
+    }
+
+    private static String message(ConfigurationSection config, String key, String defaultMessage) {
+        return ChatColor.translateAlternateColorCodes('&', config.getString("messages." + key, defaultMessage));
+    }
+
+    /**
+     * Gets the problems found in the config, such as out of range values that were clamped
+     */
+    public List<String> getWarnings() {
+        return Collections.unmodifiableList(warnings);
+    }
+
+    /**
+     * Gets the sphere radius, always between 1 and {@link SphereShellCache#MAX_RADIUS}
+     */
+    public int getSphereRadius() {
+        return sphereRadius;
+    }
+
+    public int getDurationSeconds() {
+        return durationSeconds;
+    }
+
+    public boolean isGhostShells() {
+        return ghostShells;
+    }
+
+    public boolean isApplyPhysics() {
+        return applyPhysics;
+    }
+
+    /**
+     * Gets the configured replaceable block names, as listed in the config
+     */
+    public List<String> getReplaceableBlockNames() {
+        return replaceableBlockNames;
+    }
+
+    public boolean isInverseReplaceableBlocks() {
+        return inverseReplaceableBlocks;
+    }
+
+    /**
+     * Gets the replaceable block rules compiled from the names and inverse mode
+     */
+    public ReplaceableBlockMatcher getReplaceableBlocks() {
+        return replaceableBlocks;
+    }
+
+    public boolean isRegionChecksEnabled() {
+        return regionChecksEnabled;
+    }
+
+    public Set<String> getAllowedRegions() {
+        return allowedRegions;
+    }
+
+    public boolean isCheckFullSphere() {
+        return checkFullSphere;
+    }
+
+    public long getRegionCacheMillis() {
+        return regionCacheMillis;
+    }
+
+    public String getIceSphereCreatedMessage() {
+        return iceSphereCreatedMessage;
+    }
+
+    public String getSpecialIceGivenMessage() {
+        return specialIceGivenMessage;
+    }
+
+    public String getRegionNotAllowedMessage() {
+        return regionNotAllowedMessage;
+    }
+
+    public String getQueueFullMessage() {
+        return queueFullMessage;
+    }
+
+    public String getSphereLimitMessage() {
+        return sphereLimitMessage;
+    }
+
+    public String getSphereCooldownMessage() {
+        return sphereCooldownMessage;
+    }
+
+    public String getSphereBudgetMessage() {
+        return sphereBudgetMessage;
+    }
+}
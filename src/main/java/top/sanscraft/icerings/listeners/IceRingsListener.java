@@ -1,57 +1,153 @@
 package top.sanscraft.icerings.listeners;
 
 import top.sanscraft.icerings.IceRings;
+import top.sanscraft.icerings.api.IceSphere;
+import top.sanscraft.icerings.api.event.IceSphereCreatedEvent;
+import top.sanscraft.icerings.api.event.IceSphereExpireEvent;
+import top.sanscraft.icerings.api.event.IceSpherePreCreateEvent;
+import top.sanscraft.icerings.api.event.IceSphereStageChangeEvent;
+import top.sanscraft.icerings.config.IceRingsSettings;
+import top.sanscraft.icerings.logging.SphereLog;
+import top.sanscraft.icerings.metrics.IceRingsMetrics;
+import top.sanscraft.icerings.scheduler.SphereScheduler;
+import top.sanscraft.icerings.sphere.DeferredRestorations;
+import top.sanscraft.icerings.sphere.GhostShellRenderer;
+import top.sanscraft.icerings.sphere.SphereAdmission;
+import top.sanscraft.icerings.sphere.SphereBlockIndex;
+import top.sanscraft.icerings.sphere.SphereBuildJob;
+import top.sanscraft.icerings.sphere.SphereChunkTickets;
+import top.sanscraft.icerings.sphere.SphereData;
+import top.sanscraft.icerings.sphere.SphereJournal;
+import top.sanscraft.icerings.sphere.SpherePlanner;
+import top.sanscraft.icerings.sphere.SphereQueryService;
+import top.sanscraft.icerings.sphere.SphereRegistry;
+import top.sanscraft.icerings.sphere.SphereRemovalJob;
+import top.sanscraft.icerings.sphere.SphereWorkQueue;
+import top.sanscraft.icerings.utils.ExpiryWheel;
 import top.sanscraft.icerings.utils.IceRingsUtils;
 import top.sanscraft.icerings.utils.WorldGuardIntegration;
 import org.bukkit.Bukkit;
-import org.bukkit.ChatColor;
 import org.bukkit.Location;
 import org.bukkit.Material;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+import org.bukkit.entity.Creeper;
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.Explosive;
 import org.bukkit.entity.Fireball;
 import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.EventPriority;
 import org.bukkit.event.Listener;
+import org.bukkit.event.block.Action;
 import org.bukkit.event.block.BlockBreakEvent;
+import org.bukkit.event.block.BlockBurnEvent;
+import org.bukkit.event.block.BlockFadeEvent;
+import org.bukkit.event.block.BlockFromToEvent;
+import org.bukkit.event.block.BlockPhysicsEvent;
+import org.bukkit.event.block.BlockPistonExtendEvent;
+import org.bukkit.event.block.BlockPistonRetractEvent;
 import org.bukkit.event.block.BlockPlaceEvent;
 import org.bukkit.event.entity.EntityExplodeEvent;
+import org.bukkit.event.player.PlayerChangedWorldEvent;
+import org.bukkit.event.player.PlayerInteractEvent;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerMoveEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.event.player.PlayerRespawnEvent;
+import org.bukkit.event.player.PlayerTeleportEvent;
+import org.bukkit.event.world.ChunkLoadEvent;
 import org.bukkit.inventory.ItemStack;
-import org.bukkit.metadata.FixedMetadataValue;
-import org.bukkit.scheduler.BukkitRunnable;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CompletableFuture;
 
 public class IceRingsListener implements Listener {
     
     private final IceRings plugin;
     private final IceRingsUtils iceRingsUtils;
     private final WorldGuardIntegration worldGuardIntegration;
+    private final SphereWorkQueue workQueue;
+    private final SpherePlanner planner;
+    private final SphereJournal journal;
+    private final SphereScheduler scheduler;
     
-    // Map to store active ice spheres and their locations
-    private final Map<UUID, List<Location>> activeSpheres = new ConcurrentHashMap<>();
-    // Map to store sphere metadata (owner, creation time, etc.)
-    private final Map<UUID, SphereData> sphereMetadata = new ConcurrentHashMap<>();
-    // Map to store original block types for restoration when timer expires
-    private final Map<UUID, Map<Location, Material>> originalBlocks = new ConcurrentHashMap<>();
+    // Live ice spheres by ID and handle
+    private final SphereRegistry spheres = new SphereRegistry();
+    // Sphere cell (owners and stage) for every shell block, by packed block position
+    private final SphereBlockIndex blockIndex;
+    // Expiry timers for live spheres, advanced once per tick; shared by all region threads, so guarded by itself
+    private final ExpiryWheel<SphereData> expiryWheel = new ExpiryWheel<>();
+    private final List<SphereData> expired = new ArrayList<>();
+    private SphereScheduler.Task expiryTask;
+    // Sends ghost shells to nearby players
+    private final GhostShellRenderer ghostRenderer;
+    // Keeps chunks holding sphere blocks loaded, if enabled
+    private final SphereChunkTickets chunkTickets;
+    private final DeferredRestorations deferredRestorations;
+    // Per-player, global and rate limits on new spheres
+    private final SphereAdmission admission;
+    private final IceRingsMetrics metrics;
+    private final SphereLog sphereLog;
+    private SphereScheduler.Task gaugeTask;
+    // Buffers for the explosion being handled, one per thread since regions can explode at the same time
+    private final ThreadLocal<ExplodedSlots> explodedSlots = ThreadLocal.withInitial(ExplodedSlots::new);
+    // Answers sphere lookups for other plugins
+    private final SphereQueryService queryService;
+    // Blocks hit by players this tick, per world, sent as one stage change event each; guarded by itself
+    private final Map<UUID, StageChanges> hitChanges = new HashMap<>();
     
     public IceRingsListener(IceRings plugin) {
         this.plugin = plugin;
-        this.iceRingsUtils = new IceRingsUtils(plugin);
-        this.worldGuardIntegration = new WorldGuardIntegration(plugin);
+        this.iceRingsUtils = plugin.getIceRingsUtils();
+        this.worldGuardIntegration = plugin.getWorldGuardIntegration();
+        this.workQueue = plugin.getSphereWorkQueue();
+        this.planner = plugin.getSpherePlanner();
+        this.journal = plugin.getSphereJournal();
+        this.scheduler = plugin.getSphereScheduler();
+        this.blockIndex = new SphereBlockIndex(scheduler.isRegionThreaded());
+        this.deferredRestorations = plugin.getDeferredRestorations();
+        this.metrics = plugin.getMetrics();
+        this.sphereLog = plugin.getSphereLog();
+        this.ghostRenderer = new GhostShellRenderer(plugin, blockIndex, scheduler);
+        this.chunkTickets = new SphereChunkTickets(plugin);
+        this.admission = new SphereAdmission(plugin, spheres);
+        blockIndex.setChunkListener(chunkTickets);
+        this.queryService = new SphereQueryService(spheres.getSpatialIndex(), blockIndex);
     }
     
     @EventHandler(priority = EventPriority.HIGH)
     public void onBlockPlace(BlockPlaceEvent event) {
         if (event.isCancelled()) return;
         
+        long start = System.nanoTime();
+        try {
+            handleBlockPlace(event);
+        } finally {
+            metrics.recordBlockPlace(System.nanoTime() - start);
+        }
+    }
+    
+    private void handleBlockPlace(BlockPlaceEvent event) {
+        
         Player player = event.getPlayer();
         ItemStack item = event.getItemInHand();
         
+        // Ghost blocks look solid to the client, so nothing can be placed inside them
+        Block placed = event.getBlock();
+        long placedCell = blockIndex.get(placed.getWorld().getUID(), placed.getX(), placed.getY(), placed.getZ());
+        if (placedCell != SphereBlockIndex.NO_CELL && SphereBlockIndex.isGhost(placedCell)) {
+            event.setCancelled(true);
+            ghostRenderer.refreshBlock(placed);
+            return;
+        }
+        
         // Check if the placed block is special blue ice
         if (!iceRingsUtils.isSpecialBlueIce(item)) {
             return;
@@ -59,126 +155,461 @@ public class IceRingsListener implements Listener {
         
         Location location = event.getBlock().getLocation();
         
+        // Get configuration values from one snapshot, so a reload can't change them halfway through
+        IceRingsSettings settings = plugin.getSettings();
+        
+        // Let other plugins veto the sphere or change its radius and duration
+        IceSpherePreCreateEvent preCreate = new IceSpherePreCreateEvent(player, location,
+            settings.getSphereRadius(), settings.getDurationSeconds());
+        plugin.getServer().getPluginManager().callEvent(preCreate);
+        if (preCreate.isCancelled()) {
+            event.setCancelled(true);
+            player.updateInventory();
+            return;
+        }
+        int radius = preCreate.getRadius();
+        int duration = preCreate.getDurationSeconds();
+        
         // Check WorldGuard permissions if enabled
         if (worldGuardIntegration.isWorldGuardEnabled()) {
-            List<String> allowedRegions = plugin.getConfig().getStringList("worldguard.allowed-regions");
-            if (!worldGuardIntegration.canPlaceIceRings(location, allowedRegions)) {
-                event.setCancelled(true);
-                String message = plugin.getConfig().getString("messages.region-not-allowed", 
-                    "&cYou cannot place ice rings in this area!");
-                player.sendMessage(ChatColor.translateAlternateColorCodes('&', message));
+            if (!worldGuardIntegration.canPlaceIceRings(location, radius)) {
+                rejectPlacement(event, settings.getRegionNotAllowedMessage(), "REGION");
                 return;
             }
         }
         
-        // Get configuration values
-        int radius = plugin.getConfig().getInt("ice-rings.sphere-radius", 5);
-        int duration = plugin.getConfig().getInt("ice-rings.duration-seconds", 30);
+        // Reject new spheres while the block write queue is backed up
+        if (workQueue.isSaturated()) {
+            rejectPlacement(event, settings.getQueueFullMessage(), "QUEUE_FULL");
+            return;
+        }
+        
+        // Check the sphere limits last, so a placement rejected above doesn't use up a token or start a cooldown
+        if (!player.hasPermission("icerings.bypass-limits")) {
+            SphereAdmission.Result result = admission.tryAdmit(player.getUniqueId(), radius, getCurrentTick());
+            if (result != SphereAdmission.Result.ADMITTED) {
+                metrics.recordSphereRejected();
+                rejectPlacement(event, getAdmissionMessage(settings, result, player.getUniqueId()), result.name());
+                return;
+            }
+        }
         
         // Create the ice sphere
-        createIceSphere(player, location, radius, duration);
+        createIceSphere(player, location, radius, duration, settings.isGhostShells());
         
         // Instantly break the placed block (consume the trigger item)
         event.getBlock().setType(Material.AIR);
         
         // Send message to player
-        String message = plugin.getConfig().getString("messages.ice-sphere-created", 
-            "&bIce sphere created! It will last for &e{duration} &bseconds.")
-            .replace("{duration}", String.valueOf(duration));
-        player.sendMessage(ChatColor.translateAlternateColorCodes('&', message));
-        
-        plugin.getLogger().info("Player " + player.getName() + " created an ice sphere at " + 
-            location.getWorld().getName() + " " + location.getBlockX() + "," + 
-            location.getBlockY() + "," + location.getBlockZ());
+        player.sendMessage(settings.getIceSphereCreatedMessage().replace("{duration}", String.valueOf(duration)));
     }
     
-    private void createIceSphere(Player player, Location center, int radius, int duration) {
-        // Generate unique ID for this sphere
-        UUID sphereId = UUID.randomUUID();
-        
-        // Create the hollow sphere and get original block data
-        Map<Location, Material> sphereData = iceRingsUtils.createHollowSphereWithOriginals(center, radius);
-        List<Location> sphereBlocks = new ArrayList<>(sphereData.keySet());
-        
-        // Store sphere data
-        activeSpheres.put(sphereId, sphereBlocks);
-        sphereMetadata.put(sphereId, new SphereData(player.getUniqueId(), System.currentTimeMillis(), Material.BLUE_STAINED_GLASS));
-        originalBlocks.put(sphereId, sphereData);
-        
-        // Mark all blocks with metadata for identification
-        for (Location blockLoc : sphereBlocks) {
-            blockLoc.getBlock().setMetadata("ice_sphere_id", new FixedMetadataValue(plugin, sphereId.toString()));
-            blockLoc.getBlock().setMetadata("ice_sphere_stage", new FixedMetadataValue(plugin, 1)); // Stage 1 = Blue
+    /**
+     * Cancels a placement of special blue ice, so the trigger item stays in the player's hand
+     * @param message The message to send, with colour codes already translated
+     * @param reason Why the placement was rejected, for the debug log
+     */
+    private void rejectPlacement(BlockPlaceEvent event, String message, String reason) {
+        Block block = event.getBlock();
+        sphereLog.rejected(event.getPlayer().getName(), block.getWorld().getName(),
+            block.getX(), block.getY(), block.getZ(), reason);
+        event.setCancelled(true);
+        event.getPlayer().updateInventory();
+        event.getPlayer().sendMessage(message);
+    }
+    
+    private String getAdmissionMessage(IceRingsSettings settings, SphereAdmission.Result result, UUID playerId) {
+        switch (result) {
+            case PLAYER_LIMIT:
+                return settings.getSphereLimitMessage()
+                    .replace("{limit}", String.valueOf(admission.getMaxSpheresPerPlayer()));
+            case COOLDOWN:
+                long seconds = (admission.getCooldownRemainingTicks(playerId, getCurrentTick()) + 19) / 20;
+                return settings.getSphereCooldownMessage()
+                    .replace("{seconds}", String.valueOf(seconds));
+            case BLOCK_BUDGET:
+            case RATE_LIMITED:
+            default:
+                return settings.getSphereBudgetMessage();
+        }
+    }
+    
+    private void createIceSphere(Player player, Location center, int radius, int duration, boolean ghost) {
+        // Register the sphere and queue its shell; blocks are indexed as they are written
+        SphereData sphere = spheres.create(player.getUniqueId(), center, radius, ghost);
+        if (ghost) {
+            ghostRenderer.register(sphere);
         }
+        journal.recordCreate(sphere, System.currentTimeMillis() + duration * 1000L);
+        // The shell is read from chunk snapshots off-thread, the build job waits in the queue for the plan
+        CompletableFuture<SpherePlanner.Plan> plan = planner.plan(sphere, center.getWorld());
+        workQueue.submit(new SphereBuildJob(sphere, center.getWorld(), iceRingsUtils, blockIndex, journal, ghostRenderer,
+            metrics, sphereLog, plan));
+        metrics.recordSphereCreated();
+        sphereLog.created(sphere, player.getName(), center.getWorld().getName(), duration);
+        plugin.getServer().getPluginManager().callEvent(new IceSphereCreatedEvent(sphere.getView(), player));
         
         // Schedule removal after duration
-        new BukkitRunnable() {
-            @Override
-            public void run() {
-                removeSphereWithRestore(sphereId, true); // true = restore original blocks
+        synchronized (expiryWheel) {
+            sphere.setExpiryTimer(expiryWheel.schedule(sphere, duration * 20L)); // Convert seconds to ticks
+        }
+    }
+    
+    /**
+     * Starts the tick driver that expires spheres
+     */
+    public void start() {
+        if (expiryTask == null) {
+            expiryTask = scheduler.runGlobalTimer(this::tickExpiry, 1L, 1L);
+        }
+        if (gaugeTask == null) {
+            gaugeTask = scheduler.runGlobalTimer(this::sampleGauges, 20L, 20L);
+        }
+        ghostRenderer.start();
+    }
+    
+    private void sampleGauges() {
+        metrics.updateGauges(spheres.size(), blockIndex.size(), workQueue.getPendingBlocks(),
+            workQueue.getPendingJobs(), deferredRestorations.size());
+    }
+    
+    /**
+     * Re-reads the settings of the ghost shell renderer, chunk ticket policy and sphere limits
+     */
+    public void reloadSettings() {
+        ghostRenderer.loadSettings();
+        chunkTickets.loadSettings();
+        admission.loadSettings();
+    }
+    
+    /**
+     * Gets the renderer that shows ghost shells to players
+     */
+    public GhostShellRenderer getGhostShellRenderer() {
+        return ghostRenderer;
+    }
+    
+    /**
+     * Gets the sphere query service registered for other plugins
+     */
+    public SphereQueryService getQueryService() {
+        return queryService;
+    }
+    
+    private void tickExpiry() {
+        fireHitChanges();
+        synchronized (expiryWheel) {
+            expiryWheel.advance(expired::add);
+        }
+        if (expired.isEmpty()) {
+            return;
+        }
+        
+        // Each sphere is removed by the thread owning its center, right away on a single-threaded server
+        for (SphereData sphere : expired) {
+            World world = Bukkit.getWorld(sphere.getWorldId());
+            if (world == null) {
+                removeSphereWithRestore(sphere, true);
+            } else {
+                scheduler.runAt(world, sphere.getCenterX() >> 4, sphere.getCenterZ() >> 4,
+                    () -> removeSphereWithRestore(sphere, true)); // true = restore original blocks
             }
-        }.runTaskLater(plugin, duration * 20L); // Convert seconds to ticks
+        }
+        expired.clear();
+    }
+    
+    /**
+     * Sends the blocks hit by players this tick as one stage change event per world
+     */
+    private void fireHitChanges() {
+        List<IceSphereStageChangeEvent> events;
+        synchronized (hitChanges) {
+            if (hitChanges.isEmpty()) {
+                return;
+            }
+            events = new ArrayList<>(hitChanges.size());
+            for (Map.Entry<UUID, StageChanges> entry : hitChanges.entrySet()) {
+                World world = Bukkit.getWorld(entry.getKey());
+                if (world != null) {
+                    events.add(entry.getValue().toEvent(world, IceSphereStageChangeEvent.Cause.HIT));
+                }
+            }
+            hitChanges.clear();
+        }
+        for (IceSphereStageChangeEvent changes : events) {
+            plugin.getServer().getPluginManager().callEvent(changes);
+        }
+    }
+    
+    private long getCurrentTick() {
+        synchronized (expiryWheel) {
+            return expiryWheel.getCurrentTick();
+        }
+    }
+    
+    /**
+     * Changes how long a live sphere has left, without touching the scheduler.
+     * The new expiry time is journaled too, so the journal's copy of the sphere stays in step.
+     * @param ticks new remaining lifetime in ticks from now
+     * @return false if the sphere doesn't exist or is already expiring
+     */
+    public boolean setRemainingTicks(UUID sphereId, long ticks) {
+        SphereData sphere = spheres.get(sphereId);
+        if (sphere == null || sphere.getExpiryTimer() == null || !sphere.getExpiryTimer().isScheduled()) {
+            return false;
+        }
+        synchronized (expiryWheel) {
+            expiryWheel.reschedule(sphere.getExpiryTimer(), ticks);
+        }
+        journal.recordReschedule(sphere, System.currentTimeMillis() + ticks * 50L);
+        return true;
+    }
+    
+    /**
+     * Gets how many ticks a live sphere has left, or -1 if it isn't scheduled to expire
+     */
+    public long getRemainingTicks(UUID sphereId) {
+        SphereData sphere = spheres.get(sphereId);
+        if (sphere == null || sphere.getExpiryTimer() == null || !sphere.getExpiryTimer().isScheduled()) {
+            return -1;
+        }
+        synchronized (expiryWheel) {
+            return expiryWheel.getRemainingTicks(sphere.getExpiryTimer());
+        }
     }
     
     @EventHandler(priority = EventPriority.HIGH)
     public void onBlockBreak(BlockBreakEvent event) {
         if (event.isCancelled()) return;
         
-        Location location = event.getBlock().getLocation();
+        long start = System.nanoTime();
+        try {
+            handleBlockBreak(event);
+        } finally {
+            metrics.recordBlockBreak(System.nanoTime() - start);
+        }
+    }
+    
+    private void handleBlockBreak(BlockBreakEvent event) {
+        
+        Block block = event.getBlock();
+        UUID worldId = block.getWorld().getUID();
         
-        // Check if this block is part of an ice sphere
-        if (!location.getBlock().hasMetadata("ice_sphere_id")) {
+        // Check if this block is part of an ice sphere, blocks outside sphere chunks are rejected first
+        long cell = blockIndex.get(worldId, block.getX(), block.getY(), block.getZ());
+        if (cell == SphereBlockIndex.NO_CELL) {
             return;
         }
         
-        String sphereIdString = location.getBlock().getMetadata("ice_sphere_id").get(0).asString();
-        UUID sphereId = UUID.fromString(sphereIdString);
+        // The real block under a ghost block is never broken, the hit was already counted on click
+        if (SphereBlockIndex.isGhost(cell)) {
+            event.setCancelled(true);
+            ghostRenderer.refreshBlock(block);
+            return;
+        }
+        
+        // Handle stage progression, the last stage breaks normally and won't be restored
+        if (damageBlock(worldId, block, cell)) {
+            event.setCancelled(true);
+        }
+    }
+    
+    @EventHandler(priority = EventPriority.HIGH)
+    public void onPlayerInteract(PlayerInteractEvent event) {
+        if (event.getAction() != Action.LEFT_CLICK_BLOCK || event.getClickedBlock() == null) return;
+        
+        // Ghost blocks aren't in the world to be broken, so every hit on one counts as a break
+        Block block = event.getClickedBlock();
+        UUID worldId = block.getWorld().getUID();
+        long cell = blockIndex.get(worldId, block.getX(), block.getY(), block.getZ());
+        if (cell == SphereBlockIndex.NO_CELL || !SphereBlockIndex.isGhost(cell)) {
+            return;
+        }
+        
+        event.setCancelled(true);
+        damageBlock(worldId, block, cell);
+    }
+    
+    @EventHandler(priority = EventPriority.HIGH)
+    public void onPlayerMove(PlayerMoveEvent event) {
+        if (event.isCancelled()) return;
         
-        if (!activeSpheres.containsKey(sphereId)) {
+        // Only check moves into a different block
+        Location from = event.getFrom();
+        Location to = event.getTo();
+        if (to == null || (to.getBlockX() == from.getBlockX() && to.getBlockY() == from.getBlockY()
+                && to.getBlockZ() == from.getBlockZ())) {
             return;
         }
         
-        // Get current stage
-        int currentStage = 1;
-        if (location.getBlock().hasMetadata("ice_sphere_stage")) {
-            currentStage = location.getBlock().getMetadata("ice_sphere_stage").get(0).asInt();
+        UUID worldId = to.getWorld().getUID();
+        if (!blockIndex.hasBlocksInChunk(worldId, to.getBlockX() >> 4, to.getBlockZ() >> 4)) {
+            return;
         }
         
-        // Handle stage progression
-        if (currentStage == 1) { // Blue -> Cyan
+        // Ghost blocks have no collision on the server, so keep players from walking through them
+        if (isGhostBlock(worldId, to.getBlockX(), to.getBlockY(), to.getBlockZ())
+                || isGhostBlock(worldId, to.getBlockX(), to.getBlockY() + 1, to.getBlockZ())) {
             event.setCancelled(true);
-            event.getBlock().setType(Material.CYAN_STAINED_GLASS);
-            event.getBlock().setMetadata("ice_sphere_stage", new FixedMetadataValue(plugin, 2));
-            
-        } else if (currentStage == 2) { // Cyan -> Light Blue
+        }
+    }
+    
+    // The client reloads its chunks from the real world after these, so ghost shells are sent again
+    
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerJoin(PlayerJoinEvent event) {
+        ghostRenderer.resetViewer(event.getPlayer().getUniqueId());
+    }
+    
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerChangedWorld(PlayerChangedWorldEvent event) {
+        ghostRenderer.resetViewer(event.getPlayer().getUniqueId());
+    }
+    
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerRespawn(PlayerRespawnEvent event) {
+        ghostRenderer.resetViewer(event.getPlayer().getUniqueId());
+    }
+    
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerTeleport(PlayerTeleportEvent event) {
+        if (event.isCancelled()) return;
+        ghostRenderer.resetViewer(event.getPlayer().getUniqueId());
+    }
+    
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerQuit(PlayerQuitEvent event) {
+        ghostRenderer.removeViewer(event.getPlayer().getUniqueId());
+        admission.removePlayer(event.getPlayer().getUniqueId());
+    }
+    
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onChunkLoad(ChunkLoadEvent event) {
+        // Restore sphere blocks that expired while this chunk was unloaded
+        deferredRestorations.applyChunk(event.getChunk());
+    }
+    
+    // Shell blocks must stay where the sphere put them, or restoration would write over whatever replaced them.
+    // These events fire constantly, so each handler rejects other blocks with a single index lookup.
+    
+    @EventHandler(priority = EventPriority.HIGH)
+    public void onBlockPistonExtend(BlockPistonExtendEvent event) {
+        if (event.isCancelled()) return;
+        if (isAnySphereBlock(event.getBlock().getWorld().getUID(), event.getBlocks())) {
             event.setCancelled(true);
-            event.getBlock().setType(Material.LIGHT_BLUE_STAINED_GLASS);
-            event.getBlock().setMetadata("ice_sphere_stage", new FixedMetadataValue(plugin, 3));
-            
-        } else if (currentStage == 3) { // Light Blue -> Break
-            // Allow the block to break normally
-            // Remove metadata
-            location.getBlock().removeMetadata("ice_sphere_id", plugin);
-            location.getBlock().removeMetadata("ice_sphere_stage", plugin);
-            
-            // Remove this location from the sphere and original blocks map
-            List<Location> sphereBlocks = activeSpheres.get(sphereId);
-            if (sphereBlocks != null) {
-                sphereBlocks.remove(location);
-                
-                // Remove from original blocks map (so it won't be restored)
-                Map<Location, Material> originals = originalBlocks.get(sphereId);
-                if (originals != null) {
-                    originals.remove(location);
-                }
-                
-                // If sphere is empty, clean up
-                if (sphereBlocks.isEmpty()) {
-                    activeSpheres.remove(sphereId);
-                    sphereMetadata.remove(sphereId);
-                    originalBlocks.remove(sphereId);
-                }
+        }
+    }
+    
+    @EventHandler(priority = EventPriority.HIGH)
+    public void onBlockPistonRetract(BlockPistonRetractEvent event) {
+        if (event.isCancelled()) return;
+        if (isAnySphereBlock(event.getBlock().getWorld().getUID(), event.getBlocks())) {
+            event.setCancelled(true);
+        }
+    }
+    
+    @EventHandler(priority = EventPriority.HIGH)
+    public void onBlockFromTo(BlockFromToEvent event) {
+        if (event.isCancelled()) return;
+        // Fluids and dragon eggs moving into a shell block
+        if (isSphereBlock(event.getToBlock())) {
+            event.setCancelled(true);
+        }
+    }
+    
+    @EventHandler(priority = EventPriority.HIGH)
+    public void onBlockBurn(BlockBurnEvent event) {
+        if (event.isCancelled()) return;
+        if (isSphereBlock(event.getBlock())) {
+            event.setCancelled(true);
+        }
+    }
+    
+    @EventHandler(priority = EventPriority.HIGH)
+    public void onBlockFade(BlockFadeEvent event) {
+        if (event.isCancelled()) return;
+        if (isSphereBlock(event.getBlock())) {
+            event.setCancelled(true);
+        }
+    }
+    
+    @EventHandler(priority = EventPriority.HIGH)
+    public void onBlockPhysics(BlockPhysicsEvent event) {
+        if (event.isCancelled()) return;
+        if (isSphereBlock(event.getBlock())) {
+            event.setCancelled(true);
+        }
+    }
+    
+    /**
+     * Checks if a block is a sphere block written to the world. Ghost blocks aren't in the world, so they need no protection.
+     */
+    private boolean isSphereBlock(Block block) {
+        long cell = blockIndex.get(block.getWorld().getUID(), block.getX(), block.getY(), block.getZ());
+        return cell != SphereBlockIndex.NO_CELL && !SphereBlockIndex.isGhost(cell);
+    }
+    
+    private boolean isAnySphereBlock(UUID worldId, List<Block> blocks) {
+        if (!blockIndex.hasBlocks(worldId)) {
+            return false;
+        }
+        for (int i = 0; i < blocks.size(); i++) {
+            Block block = blocks.get(i);
+            long cell = blockIndex.get(worldId, block.getX(), block.getY(), block.getZ());
+            if (cell != SphereBlockIndex.NO_CELL && !SphereBlockIndex.isGhost(cell)) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    private boolean isGhostBlock(UUID worldId, int x, int y, int z) {
+        long cell = blockIndex.get(worldId, x, y, z);
+        return cell != SphereBlockIndex.NO_CELL && SphereBlockIndex.isGhost(cell);
+    }
+    
+    /**
+     * Advances a sphere block to its next durability stage (Blue -> Cyan -> Light Blue),
+     * or releases it when it is already at the last stage
+     * @return true if the block survived the hit
+     */
+    private boolean damageBlock(UUID worldId, Block block, long cell) {
+        int currentStage = SphereBlockIndex.stage(cell);
+        boolean ghost = SphereBlockIndex.isGhost(cell);
+        if (currentStage >= 3) { // Light Blue -> Break
+            recordHit(worldId, block, cell, IceSphereStageChangeEvent.DESTROYED);
+            releaseBlock(worldId, block, cell);
+            if (ghost) {
+                ghostRenderer.refreshBlock(block);
             }
+            return false;
+        }
+        
+        int nextStage = currentStage + 1;
+        blockIndex.put(worldId, block.getX(), block.getY(), block.getZ(), SphereBlockIndex.withStage(cell, nextStage));
+        recordHit(worldId, block, cell, nextStage);
+        if (ghost) {
+            ghostRenderer.refreshBlock(block);
+        } else {
+            iceRingsUtils.setBlockType(block, IceRingsUtils.getStageMaterial(nextStage));
+        }
+        return true;
+    }
+    
+    /**
+     * Adds a hit block to this tick's stage change batch, if anything listens for them
+     */
+    private void recordHit(UUID worldId, Block block, long cell, int stage) {
+        if (!IceSphereStageChangeEvent.hasListeners()) {
+            return;
+        }
+        SphereData sphere = spheres.get(SphereBlockIndex.handle(cell));
+        if (sphere == null) {
+            return;
+        }
+        synchronized (hitChanges) {
+            hitChanges.computeIfAbsent(worldId, id -> new StageChanges())
+                .add(block.getX(), block.getY(), block.getZ(), stage, sphere.getView());
         }
     }
     
@@ -186,156 +617,339 @@ public class IceRingsListener implements Listener {
     public void onEntityExplode(EntityExplodeEvent event) {
         if (event.isCancelled()) return;
         
+        long start = System.nanoTime();
+        try {
+            handleEntityExplode(event);
+        } finally {
+            metrics.recordEntityExplode(System.nanoTime() - start);
+        }
+    }
+    
+    private void handleEntityExplode(EntityExplodeEvent event) {
+        
         // Check if explosion is from a fireball
         boolean isFireball = event.getEntity() instanceof Fireball;
         
-        // Handle blue stained glass blocks and fireball explosions
+        // Skip explosions in worlds without any sphere blocks
+        UUID worldId = event.getLocation().getWorld().getUID();
+        if (!blockIndex.hasBlocks(worldId)) {
+            return;
+        }
+        
+        // Classify the blast list in one pass against the index: protected blocks are dropped from it,
+        // destroyed ones are collected and their spheres updated once at the end
+        ExplodedSlots exploded = explodedSlots.get();
+        exploded.notify = IceSphereStageChangeEvent.hasListeners();
         event.blockList().removeIf(block -> {
-            if (!block.hasMetadata("ice_sphere_id")) {
+            long cell = blockIndex.get(worldId, block.getX(), block.getY(), block.getZ());
+            if (cell == SphereBlockIndex.NO_CELL) {
                 return false; // Not an ice sphere block, don't remove from explosion
             }
             
-            // Get the stage of this block
-            int stage = 1;
-            if (block.hasMetadata("ice_sphere_stage")) {
-                stage = block.getMetadata("ice_sphere_stage").get(0).asInt();
+            // Stage 1 (blue) blocks are immune to all explosions except fireballs
+            if (SphereBlockIndex.stage(cell) == 1 && !isFireball) {
+                return true; // Remove from explosion list (protect)
             }
             
-            // Stage 1 (blue) blocks special handling
-            if (stage == 1) {
-                if (isFireball) {
-                    // Let fireball explosion destroy blue glass normally, but clean up metadata
-                    String sphereIdString = block.getMetadata("ice_sphere_id").get(0).asString();
-                    UUID sphereId = UUID.fromString(sphereIdString);
-                    
-                    // Clean up metadata
-                    block.removeMetadata("ice_sphere_id", plugin);
-                    block.removeMetadata("ice_sphere_stage", plugin);
-                    
-                    // Remove from active spheres and original blocks
-                    List<Location> sphereBlocks = activeSpheres.get(sphereId);
-                    if (sphereBlocks != null) {
-                        sphereBlocks.remove(block.getLocation());
-                        
-                        // Remove from original blocks map (so it won't be restored)
-                        Map<Location, Material> originals = originalBlocks.get(sphereId);
-                        if (originals != null) {
-                            originals.remove(block.getLocation());
-                        }
-                        
-                        if (sphereBlocks.isEmpty()) {
-                            activeSpheres.remove(sphereId);
-                            sphereMetadata.remove(sphereId);
-                            originalBlocks.remove(sphereId);
-                        }
-                    }
-                    
-                    // Allow the explosion to destroy this block normally
-                    return false;
-                } else {
-                    // Immune to all other explosions
-                    return true; // Remove from explosion list (protect)
-                }
+            // Stages 2 (cyan) and 3 (light blue) are vulnerable to all explosions,
+            // let the explosion destroy this block normally, it won't be restored
+            collectExploded(exploded, worldId, block.getX(), block.getY(), block.getZ(), cell);
+            return false;
+        });
+        
+        List<Block> ghostBlocks = ghostRenderer.getSpheres().isEmpty()
+            ? Collections.emptyList() : damageGhostBlocks(event, worldId, isFireball, exploded);
+        
+        // Report every destroyed block in one event, before any sphere it emptied is dropped
+        if (exploded.losses.count > 0) {
+            IceSphereStageChangeEvent losses = exploded.losses.toEvent(event.getLocation().getWorld(),
+                IceSphereStageChangeEvent.Cause.EXPLOSION);
+            plugin.getServer().getPluginManager().callEvent(losses);
+        }
+        releaseExploded(exploded);
+        ghostRenderer.refreshBlocks(event.getLocation().getWorld(), ghostBlocks);
+    }
+    
+    /**
+     * Applies an explosion to ghost blocks, which are not in the world and so never in its block list.
+     * Uses the same rules as real sphere blocks.
+     * @return the destroyed ghost blocks, to be resent to nearby players
+     */
+    private List<Block> damageGhostBlocks(EntityExplodeEvent event, UUID worldId, boolean isFireball, ExplodedSlots exploded) {
+        Location origin = event.getLocation();
+        World world = origin.getWorld();
+        float power = getExplosionPower(event.getEntity());
+        List<Block> destroyed = new ArrayList<>();
+        
+        for (SphereData sphere : new ArrayList<>(ghostRenderer.getSpheres())) {
+            if (!sphere.getWorldId().equals(worldId)) {
+                continue;
+            }
+            double cx = sphere.getCenterX() - origin.getX();
+            double cy = sphere.getCenterY() - origin.getY();
+            double cz = sphere.getCenterZ() - origin.getZ();
+            double reach = power + sphere.getRadius() + 1;
+            if (cx * cx + cy * cy + cz * cz > reach * reach) {
+                continue;
             }
             
-            // Stages 2 (cyan) and 3 (light blue) are vulnerable to all explosions
-            if (stage >= 2) {
-                // Clean up metadata when destroyed by explosion
-                String sphereIdString = block.getMetadata("ice_sphere_id").get(0).asString();
-                UUID sphereId = UUID.fromString(sphereIdString);
+            for (int slot = 0; slot < sphere.getBlockCount(); slot++) {
+                int x = sphere.getBlockX(slot);
+                int y = sphere.getBlockY(slot);
+                int z = sphere.getBlockZ(slot);
+                double dx = x + 0.5 - origin.getX();
+                double dy = y + 0.5 - origin.getY();
+                double dz = z + 0.5 - origin.getZ();
+                if (dx * dx + dy * dy + dz * dz > power * power) {
+                    continue;
+                }
                 
-                block.removeMetadata("ice_sphere_id", plugin);
-                block.removeMetadata("ice_sphere_stage", plugin);
+                // Shared blocks are handled once, by their primary owner
+                long cell = blockIndex.get(worldId, x, y, z);
+                if (cell == SphereBlockIndex.NO_CELL || !SphereBlockIndex.isGhost(cell)
+                        || SphereBlockIndex.handle(cell) != sphere.getHandle() || SphereBlockIndex.slot(cell) != slot) {
+                    continue;
+                }
                 
-                // Remove from active spheres and original blocks
-                List<Location> sphereBlocks = activeSpheres.get(sphereId);
-                if (sphereBlocks != null) {
-                    sphereBlocks.remove(block.getLocation());
-                    
-                    // Remove from original blocks map (so it won't be restored)
-                    Map<Location, Material> originals = originalBlocks.get(sphereId);
-                    if (originals != null) {
-                        originals.remove(block.getLocation());
-                    }
-                    
-                    if (sphereBlocks.isEmpty()) {
-                        activeSpheres.remove(sphereId);
-                        sphereMetadata.remove(sphereId);
-                        originalBlocks.remove(sphereId);
-                    }
+                // Stage 1 (blue) blocks are immune to all explosions except fireballs
+                if (SphereBlockIndex.stage(cell) == 1 && !isFireball) {
+                    continue;
                 }
                 
-                return false; // Allow explosion to destroy this block
+                collectExploded(exploded, worldId, x, y, z, cell);
+                destroyed.add(world.getBlockAt(x, y, z));
             }
-            
-            return true; // Default: protect the block
-        });
+        }
+        return destroyed;
     }
     
-    private void removeSphere(UUID sphereId) {
-        removeSphereWithRestore(sphereId, false);
+    private static float getExplosionPower(Entity entity) {
+        if (entity instanceof Explosive) {
+            return ((Explosive) entity).getYield();
+        }
+        if (entity instanceof Creeper) {
+            Creeper creeper = (Creeper) entity;
+            return creeper.getExplosionRadius() * (creeper.isPowered() ? 2 : 1);
+        }
+        return 4.0f; // TNT
     }
     
-    private void removeSphereWithRestore(UUID sphereId, boolean restoreOriginals) {
-        List<Location> sphereBlocks = activeSpheres.get(sphereId);
-        Map<Location, Material> originals = originalBlocks.get(sphereId);
+    /**
+     * Drops a destroyed block from every sphere sharing it so it is not restored later.
+     * Removes a fully built sphere entirely once it has no blocks left.
+     */
+    private void releaseBlock(UUID worldId, Block block, long cell) {
+        long[] sharedOwners = blockIndex.getSharedOwners(worldId, block.getX(), block.getY(), block.getZ(), cell);
+        blockIndex.remove(worldId, block.getX(), block.getY(), block.getZ());
         
-        if (sphereBlocks == null) {
+        releaseSlot(SphereBlockIndex.handle(cell), SphereBlockIndex.slot(cell));
+        for (long owner : sharedOwners) {
+            releaseSlot(SphereBlockIndex.ownerHandle(owner), SphereBlockIndex.ownerSlot(owner));
+        }
+    }
+    
+    private void releaseSlot(int handle, int slot) {
+        SphereData sphere = spheres.get(handle);
+        if (sphere == null) {
             return;
         }
         
-        // Remove all blocks and their metadata
-        for (Location location : sphereBlocks) {
-            location.getBlock().removeMetadata("ice_sphere_id", plugin);
-            location.getBlock().removeMetadata("ice_sphere_stage", plugin);
+        journal.recordBreak(sphere, slot);
+        if (sphere.releaseBlock() && sphere.getState() == SphereData.State.ACTIVE) {
+            removeDestroyedSphere(sphere);
         }
+    }
+    
+    /**
+     * Takes a block destroyed by an explosion out of the index and queues its owners' slots for release
+     */
+    private void collectExploded(ExplodedSlots exploded, UUID worldId, int x, int y, int z, long cell) {
+        long[] sharedOwners = blockIndex.getSharedOwners(worldId, x, y, z, cell);
+        blockIndex.remove(worldId, x, y, z);
         
-        if (restoreOriginals && originals != null) {
-            // Restore original blocks
-            iceRingsUtils.restoreOriginalBlocks(originals);
-            plugin.getLogger().info("Restored original blocks for ice sphere with ID: " + sphereId);
-        } else {
-            // Just remove the sphere blocks (set to air)
-            iceRingsUtils.removeSphere(sphereBlocks);
+        if (exploded.count + 1 + sharedOwners.length > exploded.owners.length) {
+            exploded.owners = Arrays.copyOf(exploded.owners,
+                Math.max(exploded.owners.length * 2, exploded.count + 1 + sharedOwners.length));
+        }
+        exploded.owners[exploded.count++] = SphereBlockIndex.owner(SphereBlockIndex.handle(cell), SphereBlockIndex.slot(cell));
+        for (long owner : sharedOwners) {
+            exploded.owners[exploded.count++] = owner;
         }
         
-        // Clean up maps
-        activeSpheres.remove(sphereId);
-        sphereMetadata.remove(sphereId);
-        originalBlocks.remove(sphereId);
+        if (exploded.notify) {
+            SphereData sphere = spheres.get(SphereBlockIndex.handle(cell));
+            if (sphere != null) {
+                exploded.losses.add(x, y, z, IceSphereStageChangeEvent.DESTROYED, sphere.getView());
+            }
+        }
+    }
+    
+    /**
+     * Releases every slot collected for an explosion, with one journal record and one
+     * live block update per sphere. Owners are packed handle first, so sorting groups them by sphere.
+     */
+    private void releaseExploded(ExplodedSlots exploded) {
+        long[] owners = exploded.owners;
+        int count = exploded.count;
+        Arrays.sort(owners, 0, count);
+        int start = 0;
+        while (start < count) {
+            int handle = SphereBlockIndex.ownerHandle(owners[start]);
+            int end = start;
+            while (end < count && SphereBlockIndex.ownerHandle(owners[end]) == handle) {
+                end++;
+            }
+            
+            SphereData sphere = spheres.get(handle);
+            if (sphere != null) {
+                if (end - start > exploded.sphereSlots.length) {
+                    exploded.sphereSlots = new int[Math.max(exploded.sphereSlots.length * 2, end - start)];
+                }
+                for (int i = start; i < end; i++) {
+                    exploded.sphereSlots[i - start] = SphereBlockIndex.ownerSlot(owners[i]);
+                }
+                journal.recordBreaks(sphere, exploded.sphereSlots, end - start);
+                if (sphere.releaseBlocks(end - start) && sphere.getState() == SphereData.State.ACTIVE) {
+                    removeDestroyedSphere(sphere);
+                }
+            }
+            start = end;
+        }
+        exploded.count = 0;
+    }
+    
+    /**
+     * Drops a fully built sphere that has no blocks left
+     */
+    private void removeDestroyedSphere(SphereData sphere) {
+        synchronized (expiryWheel) {
+            expiryWheel.cancel(sphere.getExpiryTimer());
+        }
+        spheres.remove(sphere);
+        ghostRenderer.unregister(sphere);
+        journal.recordExpire(sphere);
+        plugin.getServer().getPluginManager().callEvent(
+            new IceSphereExpireEvent(sphere.getView(), IceSphereExpireEvent.Reason.DESTROYED));
+    }
+    
+    private void removeSphereWithRestore(SphereData sphere, boolean restoreOriginals) {
+        if (sphere.getState() == SphereData.State.REMOVING) {
+            return;
+        }
         
-        plugin.getLogger().info("Removed ice sphere with ID: " + sphereId + 
-            (restoreOriginals ? " (with restoration)" : " (without restoration)"));
+        // Stops any unfinished build; the sphere is unregistered once its blocks are processed
+        sphere.setState(SphereData.State.REMOVING);
+        plugin.getServer().getPluginManager().callEvent(
+            new IceSphereExpireEvent(sphere.getView(), IceSphereExpireEvent.Reason.EXPIRED));
+        workQueue.submit(new SphereRemovalJob(sphereLog, sphere, Bukkit.getWorld(sphere.getWorldId()),
+            restoreOriginals, iceRingsUtils, blockIndex, spheres, journal, ghostRenderer, deferredRestorations, metrics));
     }
     
     /**
-     * Clean up all active spheres when plugin is disabled
+     * Clean up all active spheres when plugin is disabled, restoring their original blocks.
+     * On region-threaded servers the disabling thread owns no region and can't write blocks,
+     * so shells are left in the world and restored from the journal on the next startup.
      */
     public void cleanup() {
-        for (UUID sphereId : activeSpheres.keySet()) {
-            removeSphere(sphereId); // Don't restore on cleanup
+        if (expiryTask != null) {
+            expiryTask.cancel();
+            expiryTask = null;
+        }
+        if (gaugeTask != null) {
+            gaugeTask.cancel();
+            gaugeTask = null;
+        }
+        workQueue.clear();
+        if (scheduler.isRegionThreaded()) {
+            leaveSpheresJournaled();
+        } else {
+            restoreAllSpheres();
+        }
+        ghostRenderer.stop();
+        chunkTickets.releaseAll();
+        spheres.clear();
+        blockIndex.clear();
+    }
+    
+    private void restoreAllSpheres() {
+        for (SphereData sphere : new ArrayList<>(spheres.values())) {
+            sphere.setState(SphereData.State.REMOVING);
+            new SphereRemovalJob(sphereLog, sphere, Bukkit.getWorld(sphere.getWorldId()),
+                true, iceRingsUtils, blockIndex, spheres, journal, ghostRenderer, deferredRestorations, metrics).runToCompletion();
         }
-        activeSpheres.clear();
-        sphereMetadata.clear();
-        originalBlocks.clear();
     }
     
     /**
-     * Data class to store sphere metadata
+     * Leaves every sphere's shell in place without expiring it in the journal, so the next startup replays it
      */
-    private static class SphereData {
-        private final UUID ownerId;
-        private final long creationTime;
-        private final Material originalMaterial;
+    private void leaveSpheresJournaled() {
+        int left = 0;
+        for (SphereData sphere : spheres.values()) {
+            if (!sphere.isGhost()) {
+                left++;
+            }
+        }
+        if (left == 0) {
+            return;
+        }
+        if (journal.isEnabled()) {
+            plugin.getLogger().info(left + " ice sphere(s) will be restored from the journal on next startup");
+        } else {
+            plugin.getLogger().warning(left + " ice sphere(s) were left in the world: blocks can't be restored "
+                + "while disabling on a region-threaded server, and the sphere journal is disabled");
+        }
+    }
+    
+    /**
+     * Sphere slots destroyed by one explosion, as packed owners, released per sphere at the end
+     */
+    private static final class ExplodedSlots {
+        private long[] owners = new long[64];
+        private int count;
+        private int[] sphereSlots = new int[64];
+        // Destroyed blocks for the stage change event, only collected while something listens
+        private boolean notify;
+        private final StageChanges losses = new StageChanges();
+    }
+    
+    /**
+     * Sphere blocks collected for one stage change event, as parallel primitive arrays
+     */
+    private static final class StageChanges {
+        private int[] xs = new int[16];
+        private int[] ys = new int[16];
+        private int[] zs = new int[16];
+        private int[] stages = new int[16];
+        private IceSphere[] spheres = new IceSphere[16];
+        private int count;
         
-        public SphereData(UUID ownerId, long creationTime, Material originalMaterial) {
-            this.ownerId = ownerId;
-            this.creationTime = creationTime;
-            this.originalMaterial = originalMaterial;
+        private void add(int x, int y, int z, int stage, IceSphere sphere) {
+            if (count == xs.length) {
+                int capacity = count * 2;
+                xs = Arrays.copyOf(xs, capacity);
+                ys = Arrays.copyOf(ys, capacity);
+                zs = Arrays.copyOf(zs, capacity);
+                stages = Arrays.copyOf(stages, capacity);
+                spheres = Arrays.copyOf(spheres, capacity);
+            }
+            xs[count] = x;
+            ys[count] = y;
+            zs[count] = z;
+            stages[count] = stage;
+            spheres[count] = sphere;
+            count++;
         }
         
-        public UUID getOwnerId() { return ownerId; }
-        public long getCreationTime() { return creationTime; }
-        public Material getOriginalMaterial() { return originalMaterial; }
+        /**
+         * Copies the collected blocks into an event and empties the batch for reuse
+         */
+        private IceSphereStageChangeEvent toEvent(World world, IceSphereStageChangeEvent.Cause cause) {
+            IceSphereStageChangeEvent event = new IceSphereStageChangeEvent(world, cause,
+                Arrays.copyOf(xs, count), Arrays.copyOf(ys, count), Arrays.copyOf(zs, count),
+                Arrays.copyOf(stages, count), Arrays.copyOf(spheres, count));
+            Arrays.fill(spheres, 0, count, null);
+            count = 0;
+            return event;
+        }
     }
 }
@@ -0,0 +1,361 @@
+package top.sanscraft.icerings.logging;
+
+import org.bukkit.plugin.Plugin;
+import top.sanscraft.icerings.sphere.SphereData;
+
+import java.util.Arrays;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+
+/**
+ * Sphere lifecycle log, written to the console by a background thread.
+ * Callers fill a slot of a fixed ring buffer with the raw fields of an event; the writer thread
+ * formats them as key=value lines. Each category is sampled and rate limited before a slot is taken,
+ * and events that don't fit are counted and reported as one summary line.
+ * With a category turned off, logging an event is a single field check and allocates nothing.
+ */
+public class SphereLog {
+
+    // How often the writer thread drains the buffer, in milliseconds
+    private static final long DRAIN_INTERVAL_MILLIS = 250L;
+    private static final long WINDOW_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    /**
+     * Kinds of lifecycle events. Debug categories are only logged with general.debug enabled.
+     */
+    public enum Category {
+        CREATE("sphere.create", false),
+        REMOVE("sphere.remove", false),
+        REJECT("sphere.reject", true),
+        BUILD("sphere.build", true);
+
+        private final String key;
+        private final boolean debug;
+
+        Category(String key, boolean debug) {
+            this.key = key;
+            this.debug = debug;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        public boolean isDebug() {
+            return debug;
+        }
+    }
+
+    private static final Category[] CATEGORIES = Category.values();
+
+    private final Plugin plugin;
+
+    // Ring buffer of event slots, guarded by this
+    private final Record[] ring;
+    private int head;
+    private int size;
+
+    // Sampling and rate limit state per category, guarded by this
+    private final long[] seen = new long[CATEGORIES.length];
+    private final long[] windowStart = new long[CATEGORIES.length];
+    private final int[] windowCount = new int[CATEGORIES.length];
+    private final long[] skipped = new long[CATEGORIES.length];
+
+    // Categories currently logged, indexed by ordinal; replaced whole on reload
+    private volatile boolean[] enabled = new boolean[CATEGORIES.length];
+    private volatile int maxPerSecond;
+    private volatile int sampleEvery;
+
+    // Only touched by the writer thread
+    private final Record[] drained;
+    private final long[] drainedSkipped = new long[CATEGORIES.length];
+    private final StringBuilder line = new StringBuilder(128);
+    private ScheduledExecutorService writer;
+
+    public SphereLog(Plugin plugin) {
+        this.plugin = plugin;
+        int capacity = Math.max(16, plugin.getConfig().getInt("logging.buffer-size", 1024));
+        this.ring = new Record[capacity];
+        this.drained = new Record[capacity];
+        for (int i = 0; i < capacity; i++) {
+            ring[i] = new Record();
+            drained[i] = new Record();
+        }
+        loadSettings();
+    }
+
+    /**
+     * Reads the logged categories, sampling and rate limit from the config.
+     * The buffer size is only read at startup.
+     */
+    public void loadSettings() {
+        boolean lifecycle = plugin.getConfig().getBoolean("logging.lifecycle", true);
+        boolean debug = plugin.getConfig().getBoolean("general.debug", false);
+        boolean[] categories = new boolean[CATEGORIES.length];
+        for (Category category : CATEGORIES) {
+            categories[category.ordinal()] = category.isDebug() ? debug : lifecycle || debug;
+        }
+        maxPerSecond = Math.max(0, plugin.getConfig().getInt("logging.max-per-second", 20));
+        sampleEvery = Math.max(1, plugin.getConfig().getInt("logging.sample-every", 1));
+        enabled = categories;
+    }
+
+    /**
+     * Starts the writer thread
+     */
+    public void start() {
+        if (writer == null) {
+            writer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "IceRings Log Writer");
+                thread.setDaemon(true);
+                return thread;
+            });
+            writer.scheduleWithFixedDelay(this::drain, DRAIN_INTERVAL_MILLIS, DRAIN_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Stops the writer thread and writes out what is still buffered
+     */
+    public void close() {
+        if (writer != null) {
+            writer.shutdown();
+            try {
+                writer.awaitTermination(1, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            writer = null;
+        }
+        drain();
+    }
+
+    public boolean isEnabled(Category category) {
+        return enabled[category.ordinal()];
+    }
+
+    /**
+     * Logs a new sphere placed by a player
+     */
+    public void created(SphereData sphere, String playerName, String worldName, int durationSeconds) {
+        if (!isEnabled(Category.CREATE)) {
+            return;
+        }
+        synchronized (this) {
+            Record record = claim(Category.CREATE);
+            if (record != null) {
+                record.fill(sphere, playerName, worldName);
+                record.first = durationSeconds;
+            }
+        }
+    }
+
+    /**
+     * Logs a sphere whose shell finished building
+     */
+    public void built(SphereData sphere, long workNanos) {
+        if (!isEnabled(Category.BUILD)) {
+            return;
+        }
+        synchronized (this) {
+            Record record = claim(Category.BUILD);
+            if (record != null) {
+                record.fill(sphere, null, null);
+                record.first = sphere.getBlockCount();
+                record.second = workNanos;
+            }
+        }
+    }
+
+    /**
+     * Logs a sphere whose blocks were all removed
+     */
+    public void removed(SphereData sphere, boolean restoredOriginals) {
+        if (!isEnabled(Category.REMOVE)) {
+            return;
+        }
+        synchronized (this) {
+            Record record = claim(Category.REMOVE);
+            if (record != null) {
+                record.fill(sphere, null, null);
+                record.first = restoredOriginals ? 1 : 0;
+            }
+        }
+    }
+
+    /**
+     * Logs a placement of special blue ice that was turned down
+     * @param reason A constant describing why, e.g. an enum name
+     */
+    public void rejected(String playerName, String worldName, int x, int y, int z, String reason) {
+        if (!isEnabled(Category.REJECT)) {
+            return;
+        }
+        synchronized (this) {
+            Record record = claim(Category.REJECT);
+            if (record != null) {
+                record.fill(null, playerName, worldName);
+                record.x = x;
+                record.y = y;
+                record.z = z;
+                record.reason = reason;
+            }
+        }
+    }
+
+    /**
+     * Applies the category's sampling and rate limit and takes the next free slot
+     * @return the slot to fill, or null if the event is not logged
+     */
+    private Record claim(Category category) {
+        int index = category.ordinal();
+        if (seen[index]++ % sampleEvery != 0) {
+            return null;
+        }
+
+        long now = System.nanoTime();
+        if (now - windowStart[index] >= WINDOW_NANOS) {
+            windowStart[index] = now;
+            windowCount[index] = 0;
+        }
+        if (windowCount[index] >= maxPerSecond || size == ring.length) {
+            skipped[index]++;
+            return null;
+        }
+        windowCount[index]++;
+
+        Record record = ring[(head + size) % ring.length];
+        size++;
+        record.category = category;
+        return record;
+    }
+
+    /**
+     * Moves the buffered events out under the lock, then formats and logs them outside it
+     */
+    private void drain() {
+        int count;
+        synchronized (this) {
+            count = size;
+            for (int i = 0; i < count; i++) {
+                drained[i].copyFrom(ring[(head + i) % ring.length]);
+            }
+            head = (head + count) % ring.length;
+            size = 0;
+            System.arraycopy(skipped, 0, drainedSkipped, 0, skipped.length);
+            Arrays.fill(skipped, 0);
+        }
+
+        try {
+            for (int i = 0; i < count; i++) {
+                Record record = drained[i];
+                plugin.getLogger().info(format(record));
+                record.clear();
+            }
+            for (Category category : CATEGORIES) {
+                long missed = drainedSkipped[category.ordinal()];
+                if (missed > 0) {
+                    plugin.getLogger().info(category.getKey() + " skipped=" + missed
+                        + " (over logging.max-per-second or the log buffer was full)");
+                }
+            }
+        } catch (RuntimeException e) {
+            plugin.getLogger().log(Level.WARNING, "Could not write sphere log", e);
+        }
+    }
+
+    private String format(Record record) {
+        StringBuilder out = line;
+        out.setLength(0);
+        out.append(record.category.getKey());
+        if (record.sphereId != null) {
+            out.append(" sphere=").append(record.sphereId);
+        }
+        if (record.player != null) {
+            out.append(" player=").append(record.player);
+        }
+        if (record.world != null) {
+            out.append(" world=").append(record.world);
+        }
+        out.append(" x=").append(record.x).append(" y=").append(record.y).append(" z=").append(record.z);
+        switch (record.category) {
+            case CREATE:
+                out.append(" radius=").append(record.radius).append(" duration=").append(record.first).append('s');
+                break;
+            case BUILD:
+                out.append(" radius=").append(record.radius).append(" blocks=").append(record.first)
+                    .append(" work=").append(record.second / 1000L).append("us");
+                break;
+            case REMOVE:
+                out.append(" restored=").append(record.first != 0);
+                break;
+            case REJECT:
+                out.append(" reason=").append(record.reason);
+                break;
+            default:
+                break;
+        }
+        return out.toString();
+    }
+
+    /**
+     * One buffered event. Slots are reused, so only references to existing objects are stored.
+     */
+    private static final class Record {
+        private Category category;
+        private UUID sphereId;
+        private String player;
+        private String world;
+        private int x;
+        private int y;
+        private int z;
+        private int radius;
+        private long first;
+        private long second;
+        private String reason;
+
+        private void fill(SphereData sphere, String player, String world) {
+            this.player = player;
+            this.world = world;
+            if (sphere != null) {
+                sphereId = sphere.getSphereId();
+                x = sphere.getCenterX();
+                y = sphere.getCenterY();
+                z = sphere.getCenterZ();
+                radius = sphere.getRadius();
+            }
+        }
+
+        private void copyFrom(Record other) {
+            category = other.category;
+            sphereId = other.sphereId;
+            player = other.player;
+            world = other.world;
+            x = other.x;
+            y = other.y;
+            z = other.z;
+            radius = other.radius;
+            first = other.first;
+            second = other.second;
+            reason = other.reason;
+            other.clear();
+        }
+
+        // Drops references, so a slot doesn't keep a removed sphere's data reachable
+        private void clear() {
+            sphereId = null;
+            player = null;
+            world = null;
+            reason = null;
+            x = 0;
+            y = 0;
+            z = 0;
+            radius = 0;
+            first = 0;
+            second = 0;
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package top.sanscraft.icerings.metrics;
+
+/**
+ * Point-in-time summary of a histogram. Exposed over JMX as composite data.
+ */
+public final class HistogramSnapshot {
+    
+    private final long count;
+    private final double mean;
+    private final double p50;
+    private final double p90;
+    private final double p99;
+    private final double max;
+    
+    public HistogramSnapshot(long count, double mean, double p50, double p90, double p99, double max) {
+        this.count = count;
+        this.mean = mean;
+        this.p50 = p50;
+        this.p90 = p90;
+        this.p99 = p99;
+        this.max = max;
+    }
+    
+    public long getCount() { return count; }
+    public double getMean() { return mean; }
+    public double getP50() { return p50; }
+    public double getP90() { return p90; }
+    public double getP99() { return p99; }
+    public double getMax() { return max; }
+    
+    /**
+     * Formats the snapshot for chat, e.g. "n=12 mean=3.1 p50=2.9 p90=6.5 p99=8.0 max=8.4 us"
+     */
+    public String format(String unit) {
+        return String.format("n=%d mean=%.1f p50=%.1f p90=%.1f p99=%.1f max=%.1f %s", count, mean, p50, p90, p99, max, unit);
+    }
+}
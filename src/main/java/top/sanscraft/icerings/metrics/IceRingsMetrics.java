@@ -0,0 +1,214 @@
+package top.sanscraft.icerings.metrics;
+
+import org.bukkit.plugin.Plugin;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+
+/**
+ * Low-overhead performance metrics for the plugin.
+ * Events are recorded into lock-free counters and histograms without allocating;
+ * gauges are sampled on the main thread so JMX readers never touch plugin state.
+ */
+public class IceRingsMetrics implements IceRingsMetricsMXBean {
+    
+    private static final String OBJECT_NAME = "top.sanscraft.icerings:type=Metrics";
+    private static final double NANOS_PER_MICRO = 1000.0;
+    
+    private final Plugin plugin;
+    
+    // Nanoseconds of main-thread work spent building and restoring each sphere
+    private final Histogram sphereBuildNanos = new Histogram();
+    private final Histogram sphereRestoreNanos = new Histogram();
+    private final Histogram blocksPerSphere = new Histogram();
+    // Nanoseconds spent in each listener
+    private final Histogram blockBreakNanos = new Histogram();
+    private final Histogram entityExplodeNanos = new Histogram();
+    private final Histogram blockPlaceNanos = new Histogram();
+    
+    private final LongAdder spheresCreated = new LongAdder();
+    private final LongAdder spheresRemoved = new LongAdder();
+    private final LongAdder spheresRejected = new LongAdder();
+    
+    // Gauges, sampled on the main thread
+    private volatile int liveSpheres;
+    private volatile long trackedBlocks;
+    private volatile long pendingBlocks;
+    private volatile int pendingJobs;
+    private volatile int deferredBlocks;
+    
+    private ObjectName objectName;
+    
+    public IceRingsMetrics(Plugin plugin) {
+        this.plugin = plugin;
+    }
+    
+    /**
+     * Registers the metrics with the platform MBean server, replacing any copy left by a previous load
+     */
+    public void registerMBean() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            objectName = new ObjectName(OBJECT_NAME);
+            try {
+                server.registerMBean(this, objectName);
+            } catch (InstanceAlreadyExistsException e) {
+                server.unregisterMBean(objectName);
+                server.registerMBean(this, objectName);
+            }
+        } catch (JMException e) {
+            plugin.getLogger().log(Level.WARNING, "Could not register metrics MBean", e);
+            objectName = null;
+        }
+    }
+    
+    public void unregisterMBean() {
+        if (objectName == null) {
+            return;
+        }
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+        } catch (JMException e) {
+            plugin.getLogger().log(Level.WARNING, "Could not unregister metrics MBean", e);
+        }
+        objectName = null;
+    }
+    
+    public void recordSphereCreated() {
+        spheresCreated.increment();
+    }
+    
+    /**
+     * Records a sphere placement turned away by the admission limits
+     */
+    public void recordSphereRejected() {
+        spheresRejected.increment();
+    }
+    
+    /**
+     * Records a finished sphere build
+     */
+    public void recordSphereBuilt(long workNanos, int blocks) {
+        sphereBuildNanos.record(workNanos);
+        blocksPerSphere.record(blocks);
+    }
+    
+    /**
+     * Records a finished sphere removal
+     */
+    public void recordSphereRemoved(long workNanos) {
+        sphereRestoreNanos.record(workNanos);
+        spheresRemoved.increment();
+    }
+    
+    public void recordBlockBreak(long nanos) {
+        blockBreakNanos.record(nanos);
+    }
+    
+    public void recordEntityExplode(long nanos) {
+        entityExplodeNanos.record(nanos);
+    }
+    
+    public void recordBlockPlace(long nanos) {
+        blockPlaceNanos.record(nanos);
+    }
+    
+    /**
+     * Updates the gauges, called periodically from the main thread
+     */
+    public void updateGauges(int liveSpheres, long trackedBlocks, long pendingBlocks, int pendingJobs, int deferredBlocks) {
+        this.liveSpheres = liveSpheres;
+        this.trackedBlocks = trackedBlocks;
+        this.pendingBlocks = pendingBlocks;
+        this.pendingJobs = pendingJobs;
+        this.deferredBlocks = deferredBlocks;
+    }
+    
+    @Override
+    public int getLiveSpheres() {
+        return liveSpheres;
+    }
+    
+    @Override
+    public long getTrackedBlocks() {
+        return trackedBlocks;
+    }
+    
+    @Override
+    public long getPendingBlocks() {
+        return pendingBlocks;
+    }
+    
+    @Override
+    public int getPendingJobs() {
+        return pendingJobs;
+    }
+    
+    @Override
+    public int getDeferredBlocks() {
+        return deferredBlocks;
+    }
+    
+    @Override
+    public long getSpheresCreated() {
+        return spheresCreated.sum();
+    }
+    
+    @Override
+    public long getSpheresRemoved() {
+        return spheresRemoved.sum();
+    }
+    
+    @Override
+    public long getSpheresRejected() {
+        return spheresRejected.sum();
+    }
+    
+    @Override
+    public HistogramSnapshot getSphereBuildTime() {
+        return sphereBuildNanos.snapshot(NANOS_PER_MICRO);
+    }
+    
+    @Override
+    public HistogramSnapshot getBlocksPerSphere() {
+        return blocksPerSphere.snapshot(1.0);
+    }
+    
+    @Override
+    public HistogramSnapshot getSphereRestoreTime() {
+        return sphereRestoreNanos.snapshot(NANOS_PER_MICRO);
+    }
+    
+    @Override
+    public HistogramSnapshot getBlockBreakTime() {
+        return blockBreakNanos.snapshot(NANOS_PER_MICRO);
+    }
+    
+    @Override
+    public HistogramSnapshot getEntityExplodeTime() {
+        return entityExplodeNanos.snapshot(NANOS_PER_MICRO);
+    }
+    
+    @Override
+    public HistogramSnapshot getBlockPlaceTime() {
+        return blockPlaceNanos.snapshot(NANOS_PER_MICRO);
+    }
+    
+    @Override
+    public void reset() {
+        sphereBuildNanos.reset();
+        sphereRestoreNanos.reset();
+        blocksPerSphere.reset();
+        blockBreakNanos.reset();
+        entityExplodeNanos.reset();
+        blockPlaceNanos.reset();
+        spheresCreated.reset();
+        spheresRemoved.reset();
+        spheresRejected.reset();
+    }
+}
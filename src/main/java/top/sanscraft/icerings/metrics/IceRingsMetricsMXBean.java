@@ -0,0 +1,41 @@
+package top.sanscraft.icerings.metrics;
+
+/**
+ * JMX view of the plugin's metrics, registered as top.sanscraft.icerings:type=Metrics.
+ * Times are in microseconds.
+ */
+public interface IceRingsMetricsMXBean {
+    
+    int getLiveSpheres();
+    
+    long getTrackedBlocks();
+    
+    long getPendingBlocks();
+    
+    int getPendingJobs();
+    
+    int getDeferredBlocks();
+    
+    long getSpheresCreated();
+    
+    long getSpheresRemoved();
+    
+    long getSpheresRejected();
+    
+    HistogramSnapshot getSphereBuildTime();
+    
+    HistogramSnapshot getBlocksPerSphere();
+    
+    HistogramSnapshot getSphereRestoreTime();
+    
+    HistogramSnapshot getBlockBreakTime();
+    
+    HistogramSnapshot getEntityExplodeTime();
+    
+    HistogramSnapshot getBlockPlaceTime();
+    
+    /**
+     * Clears all histograms and counters
+     */
+    void reset();
+}
@@ -0,0 +1,128 @@
+package top.sanscraft.icerings.scheduler;
+
+import org.bukkit.Server;
+import org.bukkit.World;
+import org.bukkit.plugin.Plugin;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.function.Consumer;
+
+/**
+ * Scheduler for Folia, where regions of a world tick on separate threads.
+ * The plugin builds against the Spigot API, so Folia's schedulers are reached through reflection;
+ * the methods are looked up once and the schedulers themselves are server-wide singletons.
+ * Folia rejects delays and periods below 1 tick, so every delay and period is raised to at least 1,
+ * unlike the Bukkit scheduler, which accepts 0.
+ */
+final class FoliaSphereScheduler implements SphereScheduler {
+
+    private static final String REGIONIZED_SERVER = "io.papermc.paper.threadedregions.RegionizedServer";
+    private static final String SCHEDULER_PACKAGE = "io.papermc.paper.threadedregions.scheduler.";
+
+    private final Plugin plugin;
+    private final Object globalScheduler;
+    private final Object regionScheduler;
+
+    private final Method globalRunAtFixedRate;
+    private final Method regionExecute;
+    private final Method regionRunDelayed;
+    private final Method regionRunAtFixedRate;
+    private final Method isOwnedByCurrentRegion;
+    private final Method taskCancel;
+
+    FoliaSphereScheduler(Plugin plugin) {
+        this.plugin = plugin;
+        try {
+            Server server = plugin.getServer();
+            Class<?> globalType = Class.forName(SCHEDULER_PACKAGE + "GlobalRegionScheduler");
+            Class<?> regionType = Class.forName(SCHEDULER_PACKAGE + "RegionScheduler");
+            Class<?> taskType = Class.forName(SCHEDULER_PACKAGE + "ScheduledTask");
+
+            globalScheduler = Server.class.getMethod("getGlobalRegionScheduler").invoke(server);
+            regionScheduler = Server.class.getMethod("getRegionScheduler").invoke(server);
+
+            globalRunAtFixedRate = globalType.getMethod("runAtFixedRate", Plugin.class, Consumer.class, long.class, long.class);
+            regionExecute = regionType.getMethod("execute", Plugin.class, World.class, int.class, int.class, Runnable.class);
+            regionRunDelayed = regionType.getMethod("runDelayed", Plugin.class, World.class, int.class, int.class,
+                Consumer.class, long.class);
+            regionRunAtFixedRate = regionType.getMethod("runAtFixedRate", Plugin.class, World.class, int.class, int.class,
+                Consumer.class, long.class, long.class);
+            isOwnedByCurrentRegion = Server.class.getMethod("isOwnedByCurrentRegion", World.class, int.class, int.class);
+            taskCancel = taskType.getMethod("cancel");
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Folia detected, but its scheduler API could not be found", e);
+        }
+    }
+
+    /**
+     * Checks if the server is running Folia
+     */
+    static boolean isSupported() {
+        try {
+            Class.forName(REGIONIZED_SERVER);
+            return true;
+        } catch (ClassNotFoundException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public boolean isRegionThreaded() {
+        return true;
+    }
+
+    @Override
+    public Task runGlobalTimer(Runnable task, long delayTicks, long periodTicks) {
+        Object scheduled = invoke(globalRunAtFixedRate, globalScheduler, plugin, consumer(task),
+            Math.max(1, delayTicks), Math.max(1, periodTicks));
+        return () -> invoke(taskCancel, scheduled);
+    }
+
+    @Override
+    public void runAt(World world, int chunkX, int chunkZ, Runnable task) {
+        if (isOwnedByCurrentThread(world, chunkX, chunkZ)) {
+            task.run();
+        } else {
+            invoke(regionExecute, regionScheduler, plugin, world, chunkX, chunkZ, task);
+        }
+    }
+
+    @Override
+    public void runAtLater(World world, int chunkX, int chunkZ, Runnable task, long delayTicks) {
+        invoke(regionRunDelayed, regionScheduler, plugin, world, chunkX, chunkZ, consumer(task), Math.max(1, delayTicks));
+    }
+
+    @Override
+    public Task runAtTimer(World world, int chunkX, int chunkZ, Runnable task, long delayTicks, long periodTicks) {
+        Object scheduled = invoke(regionRunAtFixedRate, regionScheduler, plugin, world, chunkX, chunkZ, consumer(task),
+            Math.max(1, delayTicks), Math.max(1, periodTicks));
+        return () -> invoke(taskCancel, scheduled);
+    }
+
+    @Override
+    public boolean isOwnedByCurrentThread(World world, int chunkX, int chunkZ) {
+        return (Boolean) invoke(isOwnedByCurrentRegion, plugin.getServer(), world, chunkX, chunkZ);
+    }
+
+    private static Consumer<Object> consumer(Runnable task) {
+        return scheduled -> task.run();
+    }
+
+    private static Object invoke(Method method, Object target, Object... args) {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException(cause);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package top.sanscraft.icerings.scheduler;
+
+import org.bukkit.World;
+import org.bukkit.plugin.Plugin;
+
+/**
+ * Runs plugin work on the thread that owns it. On Spigot and Paper everything runs on the main thread;
+ * on Folia, work touching blocks runs on the scheduler of the region owning them, and plugin-wide
+ * timers on the global region.
+ * Folia can't schedule a task sooner than the next tick, so there every delay and period below 1 tick
+ * is raised to 1; on Spigot and Paper a delay of 0 runs the task on the next tick as usual.
+ */
+public interface SphereScheduler {
+
+    /**
+     * Creates the scheduler matching the running server
+     */
+    static SphereScheduler create(Plugin plugin) {
+        return FoliaSphereScheduler.isSupported() ? new FoliaSphereScheduler(plugin) : new BukkitSphereScheduler(plugin);
+    }
+
+    /**
+     * Checks if the server ticks regions on separate threads (Folia)
+     */
+    boolean isRegionThreaded();
+
+    /**
+     * Runs a repeating task that isn't tied to any location
+     */
+    Task runGlobalTimer(Runnable task, long delayTicks, long periodTicks);
+
+    /**
+     * Runs a task on the thread owning a chunk, right away if the current thread already owns it
+     */
+    void runAt(World world, int chunkX, int chunkZ, Runnable task);
+
+    /**
+     * Runs a task on the thread owning a chunk after the given number of ticks
+     */
+    void runAtLater(World world, int chunkX, int chunkZ, Runnable task, long delayTicks);
+
+    /**
+     * Runs a repeating task on the thread owning a chunk
+     */
+    Task runAtTimer(World world, int chunkX, int chunkZ, Runnable task, long delayTicks, long periodTicks);
+
+    /**
+     * Checks if the current thread may touch the blocks of a chunk
+     */
+    boolean isOwnedByCurrentThread(World world, int chunkX, int chunkZ);
+
+    /**
+     * A scheduled task that can be cancelled
+     */
+    interface Task {
+        void cancel();
+    }
+}
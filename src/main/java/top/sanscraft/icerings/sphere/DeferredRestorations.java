@@ -0,0 +1,182 @@
+package top.sanscraft.icerings.sphere;
+
+import org.bukkit.Chunk;
+import org.bukkit.World;
+import org.bukkit.block.data.BlockData;
+import org.bukkit.Bukkit;
+import top.sanscraft.icerings.scheduler.SphereScheduler;
+import top.sanscraft.icerings.utils.BlockKeys;
+import top.sanscraft.icerings.utils.IceRingsUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Restorations for sphere blocks whose chunk was not loaded when their sphere expired.
+ * Rather than loading the chunk, the blocks are queued by chunk and applied when it next loads.
+ * A sphere stays in the journal until all its queued blocks are applied, so a restart replays them.
+ * Blocks are queued and applied from the threads owning their regions, so the bookkeeping is
+ * synchronized while the block writes themselves happen outside the lock.
+ */
+public class DeferredRestorations {
+    
+    private final IceRingsUtils iceRingsUtils;
+    private final SphereJournal journal;
+    
+    // Queued blocks per world, by chunk key
+    private final Map<UUID, Map<Long, PendingChunk>> worlds = new HashMap<>();
+    // Queued block counts per sphere
+    private final Map<UUID, Integer> pendingBySphere = new HashMap<>();
+    // Spheres whose removal has finished, expired in the journal once nothing is left queued
+    private final Set<UUID> completed = new HashSet<>();
+    private int size;
+    
+    public DeferredRestorations(IceRingsUtils iceRingsUtils, SphereJournal journal) {
+        this.iceRingsUtils = iceRingsUtils;
+        this.journal = journal;
+    }
+    
+    /**
+     * Queues a block to be set back to the given state once its chunk loads, or cleared to air if it is null
+     */
+    public synchronized void defer(UUID worldId, int x, int y, int z, BlockData target, UUID sphereId) {
+        PendingChunk chunk = worlds.computeIfAbsent(worldId, id -> new HashMap<>())
+            .computeIfAbsent(BlockKeys.chunkOfBlock(x, z), key -> new PendingChunk());
+        chunk.add(BlockKeys.block(x, y, z), target, sphereId);
+        pendingBySphere.merge(sphereId, 1, Integer::sum);
+        size++;
+    }
+    
+    /**
+     * Marks a sphere's removal as finished. It is expired in the journal now,
+     * or once its last queued block has been applied.
+     */
+    public synchronized void complete(UUID sphereId) {
+        if (pendingBySphere.containsKey(sphereId)) {
+            completed.add(sphereId);
+        } else {
+            journal.recordExpire(sphereId);
+        }
+    }
+    
+    /**
+     * Applies every block queued for a chunk that has just loaded
+     */
+    public void applyChunk(Chunk chunk) {
+        applyChunk(chunk.getWorld(), chunk.getX(), chunk.getZ());
+    }
+    
+    /**
+     * Applies the queued blocks of every chunk that is already loaded, each on the thread owning it.
+     * Used after startup, when chunks loaded before the plugin enabled won't fire a load event.
+     */
+    public void applyLoadedChunks(SphereScheduler scheduler) {
+        List<long[]> loaded = new ArrayList<>();
+        List<World> loadedWorlds = new ArrayList<>();
+        synchronized (this) {
+            for (Map.Entry<UUID, Map<Long, PendingChunk>> entry : worlds.entrySet()) {
+                World world = Bukkit.getWorld(entry.getKey());
+                if (world == null) {
+                    continue;
+                }
+                long[] keys = new long[entry.getValue().size()];
+                int i = 0;
+                for (long key : entry.getValue().keySet()) {
+                    keys[i++] = key;
+                }
+                loaded.add(keys);
+                loadedWorlds.add(world);
+            }
+        }
+        
+        for (int w = 0; w < loaded.size(); w++) {
+            World world = loadedWorlds.get(w);
+            for (long key : loaded.get(w)) {
+                int chunkX = BlockKeys.chunkX(key);
+                int chunkZ = BlockKeys.chunkZ(key);
+                if (world.isChunkLoaded(chunkX, chunkZ)) {
+                    scheduler.runAt(world, chunkX, chunkZ, () -> applyChunk(world, chunkX, chunkZ));
+                }
+            }
+        }
+    }
+    
+    private void applyChunk(World world, int chunkX, int chunkZ) {
+        PendingChunk pending;
+        synchronized (this) {
+            Map<Long, PendingChunk> chunks = worlds.get(world.getUID());
+            if (chunks == null) {
+                return;
+            }
+            pending = chunks.remove(BlockKeys.chunk(chunkX, chunkZ));
+            if (pending == null) {
+                return;
+            }
+            if (chunks.isEmpty()) {
+                worlds.remove(world.getUID());
+            }
+        }
+        
+        for (int i = 0; i < pending.size; i++) {
+            long key = pending.blocks[i];
+            iceRingsUtils.restoreOriginalBlock(world.getBlockAt(
+                BlockKeys.blockX(key), BlockKeys.blockY(key), BlockKeys.blockZ(key)), pending.targets[i]);
+        }
+        release(pending);
+    }
+    
+    private synchronized void release(PendingChunk pending) {
+        for (int i = 0; i < pending.size; i++) {
+            UUID sphereId = pending.sphereIds[i];
+            if (pendingBySphere.merge(sphereId, -1, Integer::sum) == 0) {
+                pendingBySphere.remove(sphereId);
+                if (completed.remove(sphereId)) {
+                    journal.recordExpire(sphereId);
+                }
+            }
+        }
+        size -= pending.size;
+    }
+    
+    /**
+     * Gets the number of blocks waiting for their chunk to load
+     */
+    public synchronized int size() {
+        return size;
+    }
+    
+    /**
+     * Drops everything queued. Spheres that were still waiting stay in the journal and are replayed on startup.
+     */
+    public synchronized void clear() {
+        worlds.clear();
+        pendingBySphere.clear();
+        completed.clear();
+        size = 0;
+    }
+    
+    private static final class PendingChunk {
+        private long[] blocks = new long[16];
+        private BlockData[] targets = new BlockData[16];
+        private UUID[] sphereIds = new UUID[16];
+        private int size;
+        
+        private void add(long block, BlockData target, UUID sphereId) {
+            if (size == blocks.length) {
+                blocks = Arrays.copyOf(blocks, size * 2);
+                targets = Arrays.copyOf(targets, size * 2);
+                sphereIds = Arrays.copyOf(sphereIds, size * 2);
+            }
+            blocks[size] = block;
+            targets[size] = target;
+            sphereIds[size] = sphereId;
+            size++;
+        }
+    }
+}
@@ -0,0 +1,287 @@
+package top.sanscraft.icerings.sphere;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+import org.bukkit.block.BlockState;
+import org.bukkit.entity.Player;
+import org.bukkit.plugin.Plugin;
+import top.sanscraft.icerings.scheduler.SphereScheduler;
+import top.sanscraft.icerings.utils.IceRingsUtils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Shows ghost sphere shells to nearby players with client-side block changes.
+ * Ghost shells are never written to the world; every viewer in range is sent the shell in batches,
+ * and is sent it again after anything that makes the client reload chunks from the real world.
+ * Each sphere is synced on the thread owning its center, so the maps here are concurrent.
+ */
+public class GhostShellRenderer {
+    
+    // How often viewers are checked against sphere ranges, in ticks
+    private static final long SYNC_INTERVAL = 10L;
+    // Render range is kept this many chunks inside the server view distance, so a chunk
+    // has reached the client before its shell is sent on top of it
+    private static final int VIEW_MARGIN_CHUNKS = 2;
+    // Wait after a join, respawn or teleport before resending, while the client receives its new chunks
+    private static final long RESYNC_DELAY_MILLIS = 1000L;
+    
+    private final Plugin plugin;
+    private final SphereBlockIndex blockIndex;
+    private final SphereScheduler scheduler;
+    
+    // Ghost spheres and the players currently shown each of them
+    private final Map<SphereData, Set<UUID>> viewers = new ConcurrentHashMap<>();
+    // Players whose client is reloading chunks, and when they can be sent shells again
+    private final Map<UUID, Long> resyncAt = new ConcurrentHashMap<>();
+    private volatile int viewDistance;
+    private SphereScheduler.Task task;
+    
+    public GhostShellRenderer(Plugin plugin, SphereBlockIndex blockIndex, SphereScheduler scheduler) {
+        this.plugin = plugin;
+        this.blockIndex = blockIndex;
+        this.scheduler = scheduler;
+        loadSettings();
+    }
+    
+    /**
+     * Reads the ghost shell view distance from the config
+     */
+    public void loadSettings() {
+        int configured = plugin.getConfig().getInt("performance.ghost-view-distance", 0);
+        viewDistance = configured > 0 ? configured : Math.max(2, Bukkit.getViewDistance() - VIEW_MARGIN_CHUNKS) * 16;
+    }
+    
+    /**
+     * Starts keeping viewers in sync with the ghost spheres around them
+     */
+    public void start() {
+        if (task == null) {
+            task = scheduler.runGlobalTimer(this::sync, SYNC_INTERVAL, SYNC_INTERVAL);
+        }
+    }
+    
+    public void stop() {
+        if (task != null) {
+            task.cancel();
+            task = null;
+        }
+        viewers.clear();
+        resyncAt.clear();
+    }
+    
+    public void register(SphereData sphere) {
+        viewers.put(sphere, ConcurrentHashMap.newKeySet());
+    }
+    
+    public void unregister(SphereData sphere) {
+        viewers.remove(sphere);
+    }
+    
+    /**
+     * Gets the ghost spheres being rendered
+     */
+    public Collection<SphereData> getSpheres() {
+        return Collections.unmodifiableSet(viewers.keySet());
+    }
+    
+    /**
+     * Sends the newly built slots [fromSlot, toSlot) of a sphere to its current viewers
+     */
+    public void showSlots(SphereData sphere, int fromSlot, int toSlot) {
+        Set<UUID> shown = viewers.get(sphere);
+        World world = Bukkit.getWorld(sphere.getWorldId());
+        if (shown == null || shown.isEmpty() || world == null || fromSlot >= toSlot) {
+            return;
+        }
+        send(shown, ghostStates(sphere, world, fromSlot, toSlot));
+    }
+    
+    /**
+     * Sends the real blocks back to a sphere's viewers for ghost blocks that are gone
+     */
+    public void hideBlocks(SphereData sphere, List<Block> blocks) {
+        Set<UUID> shown = viewers.get(sphere);
+        if (shown == null || shown.isEmpty() || blocks.isEmpty()) {
+            return;
+        }
+        List<BlockState> states = new ArrayList<>(blocks.size());
+        for (Block block : blocks) {
+            states.add(block.getState());
+        }
+        send(shown, states);
+    }
+    
+    /**
+     * Resends one block to the players near it on the next tick, after the server's own
+     * correction for the client's action has gone out. Shows the block's ghost stage,
+     * or the real block if it is no longer a ghost block.
+     */
+    public void refreshBlock(Block block) {
+        refreshBlocks(block.getWorld(), Collections.singletonList(block));
+    }
+    
+    /**
+     * Resends several blocks of one world on the next tick, as one batch per nearby player
+     */
+    public void refreshBlocks(World world, List<Block> blocks) {
+        if (blocks.isEmpty()) {
+            return;
+        }
+        Block first = blocks.get(0);
+        scheduler.runAtLater(world, first.getX() >> 4, first.getZ() >> 4, () -> {
+            UUID worldId = world.getUID();
+            List<BlockState> states = new ArrayList<>(blocks.size());
+            for (Block block : blocks) {
+                BlockState state = block.getState();
+                long cell = blockIndex.get(worldId, block.getX(), block.getY(), block.getZ());
+                if (cell != SphereBlockIndex.NO_CELL && SphereBlockIndex.isGhost(cell)) {
+                    state.setType(IceRingsUtils.getStageMaterial(SphereBlockIndex.stage(cell)));
+                }
+                states.add(state);
+            }
+            
+            double rangeSquared = (double) viewDistance * viewDistance;
+            for (Player player : world.getPlayers()) {
+                Location location = player.getLocation();
+                List<BlockState> inRange = new ArrayList<>(states.size());
+                for (BlockState state : states) {
+                    double dx = state.getX() - location.getX();
+                    double dy = state.getY() - location.getY();
+                    double dz = state.getZ() - location.getZ();
+                    if (dx * dx + dy * dy + dz * dz <= rangeSquared) {
+                        inRange.add(state);
+                    }
+                }
+                if (!inRange.isEmpty()) {
+                    player.sendBlockChanges(inRange);
+                }
+            }
+        }, 1L);
+    }
+    
+    /**
+     * Forgets what a player has been shown after their client reloads its chunks,
+     * so every shell in range is sent again once the new chunks have arrived
+     */
+    public void resetViewer(UUID playerId) {
+        if (viewers.isEmpty()) {
+            return;
+        }
+        for (Set<UUID> shown : viewers.values()) {
+            shown.remove(playerId);
+        }
+        resyncAt.put(playerId, System.currentTimeMillis() + RESYNC_DELAY_MILLIS);
+    }
+    
+    /**
+     * Drops a player who left the server
+     */
+    public void removeViewer(UUID playerId) {
+        for (Set<UUID> shown : viewers.values()) {
+            shown.remove(playerId);
+        }
+        resyncAt.remove(playerId);
+    }
+    
+    private void sync() {
+        long now = System.currentTimeMillis();
+        resyncAt.values().removeIf(time -> time <= now);
+        
+        // Viewers are only dropped past the server view distance, where their client has unloaded the shell
+        int dropDistance = Math.max(viewDistance, Bukkit.getViewDistance() * 16) + 32;
+        
+        for (Map.Entry<SphereData, Set<UUID>> entry : viewers.entrySet()) {
+            SphereData sphere = entry.getKey();
+            Set<UUID> shown = entry.getValue();
+            World world = Bukkit.getWorld(sphere.getWorldId());
+            if (world == null) {
+                shown.clear();
+                continue;
+            }
+            scheduler.runAt(world, sphere.getCenterX() >> 4, sphere.getCenterZ() >> 4,
+                () -> syncSphere(sphere, shown, world, dropDistance));
+        }
+    }
+    
+    /**
+     * Drops viewers that went out of range of a sphere and sends its shell to ones that came into range
+     */
+    private void syncSphere(SphereData sphere, Set<UUID> shown, World world, int dropDistance) {
+        double showRange = viewDistance + sphere.getRadius();
+        double dropRange = dropDistance + sphere.getRadius();
+        Iterator<UUID> iterator = shown.iterator();
+        while (iterator.hasNext()) {
+            Player player = Bukkit.getPlayer(iterator.next());
+            if (player == null || !player.getWorld().getUID().equals(world.getUID())
+                    || distanceSquared(player, sphere) > dropRange * dropRange) {
+                iterator.remove();
+            }
+        }
+        
+        // Send the whole shell to players that came into range, building the batch once
+        List<BlockState> states = null;
+        for (Player player : world.getPlayers()) {
+            UUID playerId = player.getUniqueId();
+            if (shown.contains(playerId) || resyncAt.containsKey(playerId)
+                    || distanceSquared(player, sphere) > showRange * showRange) {
+                continue;
+            }
+            if (states == null) {
+                states = ghostStates(sphere, world, 0, sphere.getBlockCount());
+            }
+            player.sendBlockChanges(states);
+            shown.add(playerId);
+        }
+    }
+    
+    /**
+     * Builds the client-side states of a sphere's ghost blocks in the slot range [fromSlot, toSlot)
+     */
+    private List<BlockState> ghostStates(SphereData sphere, World world, int fromSlot, int toSlot) {
+        UUID worldId = sphere.getWorldId();
+        List<BlockState> states = new ArrayList<>(toSlot - fromSlot);
+        for (int slot = fromSlot; slot < toSlot; slot++) {
+            int x = sphere.getBlockX(slot);
+            int y = sphere.getBlockY(slot);
+            int z = sphere.getBlockZ(slot);
+            long cell = blockIndex.get(worldId, x, y, z);
+            if (cell == SphereBlockIndex.NO_CELL || !SphereBlockIndex.isGhost(cell)) {
+                continue; // Broken, or shown by the world itself
+            }
+            BlockState state = world.getBlockAt(x, y, z).getState();
+            state.setType(IceRingsUtils.getStageMaterial(SphereBlockIndex.stage(cell)));
+            states.add(state);
+        }
+        return states;
+    }
+    
+    private static void send(Set<UUID> playerIds, List<BlockState> states) {
+        if (states.isEmpty()) {
+            return;
+        }
+        for (UUID playerId : playerIds) {
+            Player player = Bukkit.getPlayer(playerId);
+            if (player != null) {
+                player.sendBlockChanges(states);
+            }
+        }
+    }
+    
+    private static double distanceSquared(Player player, SphereData sphere) {
+        double dx = player.getLocation().getX() - (sphere.getCenterX() + 0.5);
+        double dy = player.getLocation().getY() - (sphere.getCenterY() + 0.5);
+        double dz = player.getLocation().getZ() - (sphere.getCenterZ() + 0.5);
+        return dx * dx + dy * dy + dz * dz;
+    }
+}
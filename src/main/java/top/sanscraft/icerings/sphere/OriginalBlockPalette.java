@@ -0,0 +1,144 @@
+package top.sanscraft.icerings.sphere;
+
+import org.bukkit.block.data.BlockData;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Original block states of a sphere by slot, stored like a chunk section: a palette of the distinct
+ * block data plus one bit-packed palette index per slot. A shell rarely replaces more than a handful
+ * of distinct states, so most spheres need one or two bits per block.
+ * Index 0 is reserved for slots without an original.
+ */
+public final class OriginalBlockPalette {
+    
+    // Palettes up to this size are searched linearly, larger ones get a lookup map
+    private static final int LINEAR_LIMIT = 16;
+    
+    private BlockData[] palette = new BlockData[4];
+    private int paletteSize = 1;
+    private Map<BlockData, Integer> lookup;
+    
+    private int bits = 1;
+    private long[] packed;
+    private int capacity;
+    
+    public OriginalBlockPalette(int capacity) {
+        this.capacity = Math.max(1, capacity);
+        this.packed = new long[longsFor(this.capacity, bits)];
+    }
+    
+    /**
+     * Gets the original of a slot, or null if it has none
+     */
+    public BlockData get(int slot) {
+        if (slot >= capacity) {
+            return null;
+        }
+        int perLong = 64 / bits;
+        long word = packed[slot / perLong];
+        return palette[(int) (word >>> ((slot % perLong) * bits)) & ((1 << bits) - 1)];
+    }
+    
+    /**
+     * Sets the original of a slot, growing the slot capacity and index width as needed
+     */
+    public void set(int slot, BlockData original) {
+        int index = indexOf(original);
+        if (slot >= capacity) {
+            resize(Math.max(slot + 1, capacity * 2), bits);
+        }
+        if (index >= 1 << bits) {
+            resize(capacity, 32 - Integer.numberOfLeadingZeros(index));
+        }
+        write(slot, index);
+    }
+    
+    /**
+     * Gets the number of distinct originals stored
+     */
+    public int getPaletteSize() {
+        return paletteSize - 1;
+    }
+    
+    /**
+     * Gets the number of bits each slot's palette index takes
+     */
+    public int getBitsPerBlock() {
+        return bits;
+    }
+    
+    private int indexOf(BlockData original) {
+        if (original == null) {
+            return 0;
+        }
+        if (lookup != null) {
+            Integer index = lookup.get(original);
+            if (index != null) {
+                return index;
+            }
+        } else {
+            for (int i = 1; i < paletteSize; i++) {
+                if (palette[i].equals(original)) {
+                    return i;
+                }
+            }
+        }
+        
+        // New state, append it to the palette
+        if (paletteSize == palette.length) {
+            palette = Arrays.copyOf(palette, paletteSize * 2);
+        }
+        int index = paletteSize++;
+        palette[index] = original;
+        if (lookup != null) {
+            lookup.put(original, index);
+        } else if (paletteSize > LINEAR_LIMIT) {
+            lookup = new HashMap<>(paletteSize * 2);
+            for (int i = 1; i < paletteSize; i++) {
+                lookup.put(palette[i], i);
+            }
+        }
+        return index;
+    }
+    
+    private void write(int slot, int index) {
+        int perLong = 64 / bits;
+        int shift = (slot % perLong) * bits;
+        long mask = ((1L << bits) - 1) << shift;
+        packed[slot / perLong] = (packed[slot / perLong] & ~mask) | ((long) index << shift);
+    }
+    
+    /**
+     * Repacks every slot into a new array with the given capacity and index width
+     */
+    private void resize(int newCapacity, int newBits) {
+        int oldCapacity = capacity;
+        int oldBits = bits;
+        long[] old = packed;
+        
+        capacity = newCapacity;
+        bits = newBits;
+        packed = new long[longsFor(newCapacity, newBits)];
+        
+        if (oldBits == newBits) {
+            System.arraycopy(old, 0, packed, 0, old.length);
+            return;
+        }
+        int oldPerLong = 64 / oldBits;
+        int oldMask = (1 << oldBits) - 1;
+        for (int slot = 0; slot < oldCapacity; slot++) {
+            int index = (int) (old[slot / oldPerLong] >>> ((slot % oldPerLong) * oldBits)) & oldMask;
+            if (index != 0) {
+                write(slot, index);
+            }
+        }
+    }
+    
+    private static int longsFor(int capacity, int bits) {
+        int perLong = 64 / bits;
+        return (capacity + perLong - 1) / perLong;
+    }
+}
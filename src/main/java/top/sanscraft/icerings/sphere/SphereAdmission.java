@@ -0,0 +1,114 @@
+package top.sanscraft.icerings.sphere;
+
+import org.bukkit.plugin.Plugin;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Decides whether a new sphere may be placed: a cap on each player's live spheres, a global budget
+ * of shell blocks, a server-wide placement rate (token bucket) and a per-player cooldown.
+ * Every check is O(1) against the owner counts kept by the sphere registry.
+ * The rate and cooldown are counted in server ticks, so they slow down with the server when it lags.
+ * Placements can be checked from any region thread, so the checks are synchronized.
+ */
+public class SphereAdmission {
+    
+    /**
+     * Outcome of an admission check
+     */
+    public enum Result {
+        ADMITTED,
+        PLAYER_LIMIT,
+        BLOCK_BUDGET,
+        RATE_LIMITED,
+        COOLDOWN
+    }
+    
+    private static final int TICKS_PER_SECOND = 20;
+    
+    private final Plugin plugin;
+    private final SphereRegistry spheres;
+    
+    // Tick of the last admitted placement per player
+    private final Map<UUID, Long> lastPlacement = new HashMap<>();
+    
+    private int maxSpheresPerPlayer;
+    private long maxTotalBlocks;
+    private double tokensPerTick;
+    private double burst;
+    private long cooldownTicks;
+    
+    // Starts full, capped to the burst size when the settings are read
+    private double tokens = Double.MAX_VALUE;
+    private long lastRefill;
+    
+    public SphereAdmission(Plugin plugin, SphereRegistry spheres) {
+        this.plugin = plugin;
+        this.spheres = spheres;
+        loadSettings();
+    }
+    
+    /**
+     * Reads the limits from the config. A limit of 0 turns that check off.
+     */
+    public synchronized void loadSettings() {
+        maxSpheresPerPlayer = Math.max(0, plugin.getConfig().getInt("limits.max-spheres-per-player", 3));
+        maxTotalBlocks = Math.max(0, plugin.getConfig().getLong("limits.max-total-blocks", 200000));
+        double perSecond = Math.max(0, plugin.getConfig().getDouble("limits.placements-per-second", 5));
+        tokensPerTick = perSecond / TICKS_PER_SECOND;
+        burst = Math.max(1, plugin.getConfig().getInt("limits.placement-burst", 10));
+        long cooldownMillis = Math.max(0, plugin.getConfig().getLong("limits.player-cooldown-millis", 1000));
+        cooldownTicks = (cooldownMillis * TICKS_PER_SECOND + 999) / 1000;
+        tokens = Math.min(tokens, burst);
+    }
+    
+    /**
+     * Checks a placement against every limit and, if it is admitted, takes a token and starts the player's cooldown
+     */
+    public synchronized Result tryAdmit(UUID playerId, int radius, long currentTick) {
+        if (maxSpheresPerPlayer > 0 && spheres.getOwnerCount(playerId) >= maxSpheresPerPlayer) {
+            return Result.PLAYER_LIMIT;
+        }
+        if (cooldownTicks > 0 && getCooldownRemainingTicks(playerId, currentTick) > 0) {
+            return Result.COOLDOWN;
+        }
+        if (maxTotalBlocks > 0 && spheres.getReservedBlocks() + SphereRegistry.getShellSize(radius) > maxTotalBlocks) {
+            return Result.BLOCK_BUDGET;
+        }
+        if (tokensPerTick > 0) {
+            // Refill for the ticks since the last check, capped at the burst size
+            tokens = Math.min(burst, tokens + (currentTick - lastRefill) * tokensPerTick);
+            lastRefill = currentTick;
+            if (tokens < 1) {
+                return Result.RATE_LIMITED;
+            }
+            tokens--;
+        }
+        
+        if (cooldownTicks > 0) {
+            lastPlacement.put(playerId, currentTick);
+        }
+        return Result.ADMITTED;
+    }
+    
+    /**
+     * Gets how many ticks a player still has to wait before placing another sphere
+     */
+    public synchronized long getCooldownRemainingTicks(UUID playerId, long currentTick) {
+        Long last = lastPlacement.get(playerId);
+        return last == null ? 0 : Math.max(0, last + cooldownTicks - currentTick);
+    }
+    
+    public synchronized int getMaxSpheresPerPlayer() {
+        return maxSpheresPerPlayer;
+    }
+    
+    /**
+     * Forgets a player who left the server
+     */
+    public synchronized void removePlayer(UUID playerId) {
+        lastPlacement.remove(playerId);
+    }
+}
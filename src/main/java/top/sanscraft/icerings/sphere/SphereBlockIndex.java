@@ -0,0 +1,339 @@
+package top.sanscraft.icerings.sphere;
+
+import top.sanscraft.icerings.utils.BlockKeys;
+import top.sanscraft.icerings.utils.LongLongHashMap;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * World-keyed index from packed block position to the sphere cell occupying it.
+ * A cell packs its primary owner (sphere handle and slot), its owner count, its durability stage
+ * and whether it is a ghost block (only shown to clients) into one long.
+ * The primary owner is the sphere holding the block's true original; when spheres overlap,
+ * the other owners of a shared cell are kept in a small side table.
+ * Each world also keeps a count of indexed blocks per chunk, so lookups in chunks
+ * without sphere blocks are rejected after a single chunk-key probe.
+ * On region-threaded servers the index can be partitioned by region section, so each part
+ * is only ever touched by the thread ticking that section and needs no locking.
+ */
+public class SphereBlockIndex {
+    
+    /** Returned by lookups for positions that are not part of any sphere */
+    public static final long NO_CELL = 0L;
+    
+    /** Largest number of spheres that can share one cell */
+    public static final int MAX_OWNERS = 0xFF;
+    
+    private static final long[] NO_OWNERS = new long[0];
+    
+    // Flag in the stage byte marking blocks that were never written to the world
+    private static final long GHOST = 0x80L;
+    
+    // Folia's default region section is 16x16 chunks, 256x256 blocks
+    private static final int SECTION_SHIFT = 8;
+    
+    private final Map<UUID, WorldCells> worlds = new ConcurrentHashMap<>();
+    private final boolean partitioned;
+    private ChunkListener chunkListener;
+    
+    public SphereBlockIndex() {
+        this(false);
+    }
+    
+    /**
+     * @param partitioned true to keep each region section's cells apart, for servers that tick regions in parallel
+     */
+    public SphereBlockIndex(boolean partitioned) {
+        this.partitioned = partitioned;
+    }
+    
+    /**
+     * Notified when a chunk gets its first sphere block or loses its last one
+     */
+    public interface ChunkListener {
+        void onChunkOccupied(UUID worldId, int chunkX, int chunkZ);
+        
+        void onChunkVacated(UUID worldId, int chunkX, int chunkZ);
+    }
+    
+    public void setChunkListener(ChunkListener chunkListener) {
+        this.chunkListener = chunkListener;
+    }
+    
+    /**
+     * Gets the cell at a block position, or NO_CELL
+     */
+    public long get(UUID worldId, int x, int y, int z) {
+        Cells cells = getCells(worldId, x, z);
+        if (cells == null || !cells.chunkCounts.containsKey(BlockKeys.chunkOfBlock(x, z))) {
+            return NO_CELL;
+        }
+        return cells.cells.get(BlockKeys.block(x, y, z));
+    }
+    
+    /**
+     * Sets the cell at a block position, returning the previous cell or NO_CELL
+     */
+    public long put(UUID worldId, int x, int y, int z, long cell) {
+        WorldCells world = worlds.computeIfAbsent(worldId, id -> new WorldCells(partitioned));
+        Cells cells = world.getOrCreate(x, z);
+        long previous = cells.cells.put(BlockKeys.block(x, y, z), cell);
+        if (previous == NO_CELL) {
+            world.size.incrementAndGet();
+            if (cells.chunkCounts.addTo(BlockKeys.chunkOfBlock(x, z), 1) == 1 && chunkListener != null) {
+                chunkListener.onChunkOccupied(worldId, x >> 4, z >> 4);
+            }
+        }
+        return previous;
+    }
+    
+    /**
+     * Removes the cell at a block position along with all its owners, returning it or NO_CELL
+     */
+    public long remove(UUID worldId, int x, int y, int z) {
+        WorldCells world = worlds.get(worldId);
+        Cells cells = world != null ? world.get(x, z) : null;
+        if (cells == null) {
+            return NO_CELL;
+        }
+        long key = BlockKeys.block(x, y, z);
+        long previous = cells.cells.remove(key);
+        if (previous != NO_CELL) {
+            world.size.decrementAndGet();
+            if (owners(previous) > 1) {
+                cells.sharedOwners.remove(key);
+            }
+            if (cells.chunkCounts.addTo(BlockKeys.chunkOfBlock(x, z), -1) == 0 && chunkListener != null) {
+                chunkListener.onChunkVacated(worldId, x >> 4, z >> 4);
+            }
+        }
+        return previous;
+    }
+    
+    /**
+     * Gets the owners of a shared cell other than its primary owner
+     * @return packed owners (see {@link #owner(int, int)}), empty if the cell isn't shared
+     */
+    public long[] getSharedOwners(UUID worldId, int x, int y, int z, long cell) {
+        if (owners(cell) <= 1) {
+            return NO_OWNERS;
+        }
+        long[] shared = getCells(worldId, x, z).sharedOwners.get(BlockKeys.block(x, y, z));
+        return shared != null ? shared : NO_OWNERS;
+    }
+    
+    /**
+     * Adds another sphere slot as an owner of an existing cell
+     * @return the updated cell
+     */
+    public long addOwner(UUID worldId, int x, int y, int z, long cell, int handle, int slot) {
+        Cells cells = getCells(worldId, x, z);
+        long key = BlockKeys.block(x, y, z);
+        long[] shared = cells.sharedOwners.get(key);
+        long[] updated = shared == null ? new long[1] : Arrays.copyOf(shared, shared.length + 1);
+        updated[updated.length - 1] = owner(handle, slot);
+        cells.sharedOwners.put(key, updated);
+        
+        long updatedCell = withOwners(cell, owners(cell) + 1);
+        cells.cells.put(key, updatedCell);
+        return updatedCell;
+    }
+    
+    /**
+     * Checks if a sphere slot is one of the owners of a cell
+     */
+    public boolean isOwner(UUID worldId, int x, int y, int z, long cell, int handle, int slot) {
+        if (handle(cell) == handle && slot(cell) == slot) {
+            return true;
+        }
+        long owner = owner(handle, slot);
+        for (long shared : getSharedOwners(worldId, x, y, z, cell)) {
+            if (shared == owner) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * Removes one owner from a cell that has more than one owner.
+     * If the primary owner leaves, the earliest remaining owner becomes primary.
+     * @return the updated cell
+     */
+    public long removeOwner(UUID worldId, int x, int y, int z, long cell, int handle, int slot) {
+        Cells cells = getCells(worldId, x, z);
+        long key = BlockKeys.block(x, y, z);
+        long[] shared = cells.sharedOwners.get(key);
+        
+        // The primary leaving promotes the first shared owner, otherwise drop the matching shared owner
+        int index = 0;
+        long updatedCell = cell;
+        if (handle(cell) == handle && slot(cell) == slot) {
+            updatedCell = cell(ownerHandle(shared[0]), ownerSlot(shared[0]), owners(cell), stage(cell)) | (cell & GHOST);
+        } else {
+            long owner = owner(handle, slot);
+            while (shared[index] != owner) {
+                index++;
+            }
+        }
+        
+        if (shared.length == 1) {
+            cells.sharedOwners.remove(key);
+        } else {
+            long[] remaining = new long[shared.length - 1];
+            System.arraycopy(shared, 0, remaining, 0, index);
+            System.arraycopy(shared, index + 1, remaining, index, remaining.length - index);
+            cells.sharedOwners.put(key, remaining);
+        }
+        
+        updatedCell = withOwners(updatedCell, owners(cell) - 1);
+        cells.cells.put(key, updatedCell);
+        return updatedCell;
+    }
+    
+    /**
+     * Checks if a world has any indexed blocks at all
+     */
+    public boolean hasBlocks(UUID worldId) {
+        WorldCells world = worlds.get(worldId);
+        return world != null && world.size.get() > 0;
+    }
+    
+    /**
+     * Checks if a chunk currently holds any indexed blocks
+     */
+    public boolean hasBlocksInChunk(UUID worldId, int chunkX, int chunkZ) {
+        Cells cells = getCells(worldId, chunkX << 4, chunkZ << 4);
+        return cells != null && cells.chunkCounts.containsKey(BlockKeys.chunk(chunkX, chunkZ));
+    }
+    
+    /**
+     * Gets the number of indexed blocks across all worlds
+     */
+    public int size() {
+        int size = 0;
+        for (WorldCells world : worlds.values()) {
+            size += world.size.get();
+        }
+        return size;
+    }
+    
+    public void clear() {
+        worlds.clear();
+    }
+    
+    private Cells getCells(UUID worldId, int x, int z) {
+        WorldCells world = worlds.get(worldId);
+        return world != null ? world.get(x, z) : null;
+    }
+    
+    /**
+     * Packs a cell value with a single owner. Handles are always positive, so a cell is never NO_CELL.
+     */
+    public static long cell(int handle, int slot, int stage) {
+        return cell(handle, slot, 1, stage);
+    }
+    
+    private static long cell(int handle, int slot, int owners, int stage) {
+        return ((long) (handle & 0xFFFFFF) << 40) | ((long) (slot & 0xFFFFFF) << 16) | ((owners & 0xFF) << 8) | (stage & 0x7F);
+    }
+    
+    /**
+     * Gets the handle of the cell's primary owner
+     */
+    public static int handle(long cell) {
+        return (int) (cell >>> 40);
+    }
+    
+    /**
+     * Gets the slot of the cell in its primary owner
+     */
+    public static int slot(long cell) {
+        return (int) (cell >>> 16) & 0xFFFFFF;
+    }
+    
+    public static int owners(long cell) {
+        return (int) (cell >>> 8) & 0xFF;
+    }
+    
+    public static int stage(long cell) {
+        return (int) cell & 0x7F;
+    }
+    
+    public static long withStage(long cell, int stage) {
+        return (cell & ~0x7FL) | (stage & 0x7F);
+    }
+    
+    /**
+     * Checks if a cell is a ghost block, shown to clients but never written to the world
+     */
+    public static boolean isGhost(long cell) {
+        return (cell & GHOST) != 0;
+    }
+    
+    public static long asGhost(long cell) {
+        return cell | GHOST;
+    }
+    
+    private static long withOwners(long cell, int owners) {
+        return (cell & ~0xFF00L) | ((owners & 0xFF) << 8);
+    }
+    
+    /**
+     * Packs a sphere handle and slot into a shared owner entry
+     */
+    public static long owner(int handle, int slot) {
+        return ((long) handle << 32) | (slot & 0xFFFFFFFFL);
+    }
+    
+    public static int ownerHandle(long owner) {
+        return (int) (owner >>> 32);
+    }
+    
+    public static int ownerSlot(long owner) {
+        return (int) owner;
+    }
+    
+    /**
+     * Cells of one world, either all together or split by region section
+     */
+    private static final class WorldCells {
+        private final Cells all;
+        private final Map<Long, Cells> sections;
+        // Cells across the whole world, kept apart so it can be read from any thread
+        private final AtomicInteger size = new AtomicInteger();
+        
+        private WorldCells(boolean partitioned) {
+            all = partitioned ? null : new Cells(1024);
+            sections = partitioned ? new ConcurrentHashMap<>() : null;
+        }
+        
+        private Cells get(int x, int z) {
+            return all != null ? all : sections.get(BlockKeys.chunk(x >> SECTION_SHIFT, z >> SECTION_SHIFT));
+        }
+        
+        private Cells getOrCreate(int x, int z) {
+            return all != null ? all
+                : sections.computeIfAbsent(BlockKeys.chunk(x >> SECTION_SHIFT, z >> SECTION_SHIFT), key -> new Cells(256));
+        }
+    }
+    
+    /**
+     * Cells of a world or region section plus the number of cells in each chunk
+     */
+    private static final class Cells {
+        private final LongLongHashMap cells;
+        private final LongLongHashMap chunkCounts = new LongLongHashMap(64, 0L);
+        // Non-primary owners of shared cells, only populated where spheres overlap
+        private final Map<Long, long[]> sharedOwners = new HashMap<>();
+        
+        private Cells(int capacity) {
+            cells = new LongLongHashMap(capacity, NO_CELL);
+        }
+    }
+}
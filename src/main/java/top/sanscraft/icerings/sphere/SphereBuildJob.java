@@ -0,0 +1,146 @@
+package top.sanscraft.icerings.sphere;
+
+import org.bukkit.World;
+import org.bukkit.block.data.BlockData;
+import top.sanscraft.icerings.logging.SphereLog;
+import top.sanscraft.icerings.metrics.IceRingsMetrics;
+import top.sanscraft.icerings.utils.IceRingsUtils;
+import top.sanscraft.icerings.utils.SphereShellCache;
+
+import java.util.UUID;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Builds a sphere's glass shell a slice at a time.
+ * Blocks are only indexed once written, so nothing can be broken before it exists.
+ * Blocks already belonging to another sphere are joined rather than rewritten,
+ * so the glass is never mistaken for the original block.
+ * Ghost spheres write nothing; their slices are sent to viewers instead.
+ * A sphere planned off-thread waits in the queue for its plan, then writes the planned blocks and
+ * only classifies the blocks that weren't replaceable when the plan's snapshot was taken.
+ */
+public class SphereBuildJob extends SphereJob {
+    
+    private final SphereData sphere;
+    private final World world;
+    private final IceRingsUtils iceRingsUtils;
+    private final SphereBlockIndex blockIndex;
+    private final SphereJournal journal;
+    private final GhostShellRenderer ghostRenderer;
+    private final IceRingsMetrics metrics;
+    private final SphereLog sphereLog;
+    private final int[] shell;
+    private CompletableFuture<SpherePlanner.Plan> pendingPlan;
+    private SpherePlanner.Plan plan;
+    private int cursor;
+    
+    /**
+     * @param pendingPlan the sphere's plan from the planner, or null to classify each block while building
+     */
+    public SphereBuildJob(SphereData sphere, World world, IceRingsUtils iceRingsUtils,
+                          SphereBlockIndex blockIndex, SphereJournal journal, GhostShellRenderer ghostRenderer,
+                          IceRingsMetrics metrics, SphereLog sphereLog, CompletableFuture<SpherePlanner.Plan> pendingPlan) {
+        this.sphere = sphere;
+        this.world = world;
+        this.iceRingsUtils = iceRingsUtils;
+        this.blockIndex = blockIndex;
+        this.journal = journal;
+        this.ghostRenderer = ghostRenderer;
+        this.metrics = metrics;
+        this.sphereLog = sphereLog;
+        this.shell = SphereShellCache.getShell(sphere.getRadius(), sphere.getCenterX(), sphere.getCenterZ());
+        this.pendingPlan = pendingPlan;
+    }
+    
+    @Override
+    protected boolean isReady() {
+        return pendingPlan == null || pendingPlan.isDone();
+    }
+    
+    @Override
+    protected int process(int maxBlocks) {
+        if (pendingPlan != null) {
+            takePlan();
+        }
+        
+        // Stop building once the sphere has started expiring
+        if (sphere.getState() != SphereData.State.BUILDING) {
+            cursor = getTotalBlocks();
+            return 0;
+        }
+        
+        int end = (int) Math.min(getTotalBlocks(), (long) cursor + maxBlocks);
+        int processed = end - cursor;
+        int firstSlot = sphere.getBlockCount();
+        UUID worldId = sphere.getWorldId();
+        for (; cursor < end; cursor++) {
+            int offset = plan != null ? plan.getOffset(cursor) : shell[cursor];
+            int x = sphere.getCenterX() + SphereShellCache.unpackX(offset);
+            int y = sphere.getCenterY() + SphereShellCache.unpackY(offset);
+            int z = sphere.getCenterZ() + SphereShellCache.unpackZ(offset);
+            
+            // Share cells of overlapping spheres of the same kind, the existing owner keeps the true original
+            long existing = blockIndex.get(worldId, x, y, z);
+            if (existing != SphereBlockIndex.NO_CELL) {
+                if (SphereBlockIndex.isGhost(existing) == sphere.isGhost()
+                        && SphereBlockIndex.owners(existing) < SphereBlockIndex.MAX_OWNERS) {
+                    blockIndex.addOwner(worldId, x, y, z, existing, sphere.getHandle(), sphere.addBlock(offset, null));
+                }
+                continue;
+            }
+            
+            BlockData planned = plan != null ? plan.getOriginal(cursor) : null;
+            int slot = planned != null ? iceRingsUtils.placePlannedShellBlock(sphere, world, offset, planned)
+                : iceRingsUtils.placeShellBlock(sphere, world, offset);
+            if (slot >= 0) {
+                long cell = SphereBlockIndex.cell(sphere.getHandle(), slot, 1); // Stage 1 = Blue
+                blockIndex.put(worldId, x, y, z, sphere.isGhost() ? SphereBlockIndex.asGhost(cell) : cell);
+            }
+        }
+        
+        if (sphere.isGhost()) {
+            ghostRenderer.showSlots(sphere, firstSlot, sphere.getBlockCount());
+        }
+        
+        // Journal this slice's replaced blocks so a crash can restore them
+        journal.recordBlocks(sphere, firstSlot, sphere.getBlockCount());
+        return processed;
+    }
+    
+    @Override
+    public SphereData getSphere() {
+        return sphere;
+    }
+    
+    @Override
+    public int getRemainingBlocks() {
+        return getTotalBlocks() - cursor;
+    }
+    
+    private int getTotalBlocks() {
+        return plan != null ? plan.size() : shell.length;
+    }
+    
+    /**
+     * Switches to the finished plan, waiting for it if it isn't done yet
+     */
+    private void takePlan() {
+        try {
+            plan = pendingPlan.join();
+        } catch (CompletionException | CancellationException e) {
+            plan = null; // Classify each block while building instead
+        }
+        pendingPlan = null;
+    }
+    
+    @Override
+    protected void onComplete() {
+        metrics.recordSphereBuilt(getWorkNanos(), sphere.getBlockCount());
+        sphereLog.built(sphere, getWorkNanos());
+        if (sphere.getState() == SphereData.State.BUILDING) {
+            sphere.setState(SphereData.State.ACTIVE);
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package top.sanscraft.icerings.sphere;
+
+import org.bukkit.Bukkit;
+import org.bukkit.World;
+import org.bukkit.plugin.Plugin;
+
+import java.util.UUID;
+
+/**
+ * Optionally keeps chunks loaded with plugin chunk tickets while they hold sphere blocks,
+ * so expiring spheres never have to restore blocks in unloaded chunks.
+ * A chunk's ticket is released as soon as its last sphere block is gone.
+ */
+public class SphereChunkTickets implements SphereBlockIndex.ChunkListener {
+    
+    private final Plugin plugin;
+    private boolean enabled;
+    
+    public SphereChunkTickets(Plugin plugin) {
+        this.plugin = plugin;
+        loadSettings();
+    }
+    
+    /**
+     * Reads the policy from the config, releasing all tickets if it was turned off
+     */
+    public void loadSettings() {
+        boolean wasEnabled = enabled;
+        enabled = plugin.getConfig().getBoolean("performance.keep-sphere-chunks-loaded", false);
+        if (wasEnabled && !enabled) {
+            releaseAll();
+        }
+    }
+    
+    @Override
+    public void onChunkOccupied(UUID worldId, int chunkX, int chunkZ) {
+        World world = enabled ? Bukkit.getWorld(worldId) : null;
+        if (world != null) {
+            world.addPluginChunkTicket(chunkX, chunkZ, plugin);
+        }
+    }
+    
+    @Override
+    public void onChunkVacated(UUID worldId, int chunkX, int chunkZ) {
+        World world = enabled ? Bukkit.getWorld(worldId) : null;
+        if (world != null) {
+            world.removePluginChunkTicket(chunkX, chunkZ, plugin);
+        }
+    }
+    
+    /**
+     * Releases every chunk ticket held by the plugin
+     */
+    public void releaseAll() {
+        for (World world : Bukkit.getWorlds()) {
+            world.removePluginChunkTickets(plugin);
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package top.sanscraft.icerings.sphere;
+
+import org.bukkit.block.data.BlockData;
+import top.sanscraft.icerings.api.IceSphere;
+import top.sanscraft.icerings.utils.ExpiryWheel;
+import top.sanscraft.icerings.utils.SphereShellCache;
+
+import java.util.Arrays;
+import java.util.UUID;
+
+/**
+ * Data class to store a live ice sphere and the blocks it replaced.
+ * Replaced blocks are stored by slot as packed shell offsets plus a palette of their original block states.
+ */
+public class SphereData {
+    
+    /**
+     * Lifecycle of a sphere: its shell is being written, it is fully built, or it is being removed
+     */
+    public enum State {
+        BUILDING,
+        ACTIVE,
+        REMOVING
+    }
+    
+    private final UUID sphereId;
+    private final int handle;
+    private final UUID ownerId;
+    private final long creationTime;
+    private final UUID worldId;
+    private final int centerX;
+    private final int centerY;
+    private final int centerZ;
+    private final int radius;
+    private final boolean ghost;
+    private final IceSphere view;
+    
+    private int[] offsets;
+    private final OriginalBlockPalette originals;
+    private int blockCount;
+    private int liveBlocks;
+    private State state = State.BUILDING;
+    private ExpiryWheel.Timer<SphereData> expiryTimer;
+    
+    SphereData(UUID sphereId, int handle, UUID ownerId, long creationTime, UUID worldId,
+               int centerX, int centerY, int centerZ, int radius, boolean ghost) {
+        this.sphereId = sphereId;
+        this.handle = handle;
+        this.ownerId = ownerId;
+        this.creationTime = creationTime;
+        this.worldId = worldId;
+        this.centerX = centerX;
+        this.centerY = centerY;
+        this.centerZ = centerZ;
+        this.radius = radius;
+        this.ghost = ghost;
+        this.view = new IceSphere(sphereId, ownerId, worldId, centerX, centerY, centerZ, radius, ghost, creationTime);
+        this.offsets = new int[16];
+        this.originals = new OriginalBlockPalette(16);
+    }
+    
+    /**
+     * Records a shell block and returns its slot.
+     * The original is null when the block is shared with another sphere that holds it.
+     */
+    public int addBlock(int offset, BlockData original) {
+        if (blockCount == offsets.length) {
+            offsets = Arrays.copyOf(offsets, blockCount * 2);
+        }
+        offsets[blockCount] = offset;
+        originals.set(blockCount, original);
+        liveBlocks++;
+        return blockCount++;
+    }
+    
+    /**
+     * Marks one block as gone for good (broken or destroyed)
+     * @return true if the sphere has no live blocks left
+     */
+    public boolean releaseBlock() {
+        return --liveBlocks <= 0;
+    }
+    
+    /**
+     * Marks several blocks as gone for good at once
+     * @return true if the sphere has no live blocks left
+     */
+    public boolean releaseBlocks(int count) {
+        liveBlocks -= count;
+        return liveBlocks <= 0;
+    }
+    
+    public int getBlockX(int slot) { return centerX + SphereShellCache.unpackX(offsets[slot]); }
+    public int getBlockY(int slot) { return centerY + SphereShellCache.unpackY(offsets[slot]); }
+    public int getBlockZ(int slot) { return centerZ + SphereShellCache.unpackZ(offsets[slot]); }
+    public int getOffset(int slot) { return offsets[slot]; }
+    public BlockData getOriginal(int slot) { return originals.get(slot); }
+    public void setOriginal(int slot, BlockData original) { originals.set(slot, original); }
+    public OriginalBlockPalette getOriginals() { return originals; }
+    
+    public UUID getSphereId() { return sphereId; }
+    public int getHandle() { return handle; }
+    public UUID getOwnerId() { return ownerId; }
+    public long getCreationTime() { return creationTime; }
+    public UUID getWorldId() { return worldId; }
+    public int getCenterX() { return centerX; }
+    public int getCenterY() { return centerY; }
+    public int getCenterZ() { return centerZ; }
+    public int getRadius() { return radius; }
+    public boolean isGhost() { return ghost; }
+    public IceSphere getView() { return view; }
+    public int getBlockCount() { return blockCount; }
+    public int getLiveBlocks() { return liveBlocks; }
+    public State getState() { return state; }
+    public void setState(State state) { this.state = state; }
+    public ExpiryWheel.Timer<SphereData> getExpiryTimer() { return expiryTimer; }
+    public void setExpiryTimer(ExpiryWheel.Timer<SphereData> expiryTimer) { this.expiryTimer = expiryTimer; }
+}
@@ -0,0 +1,78 @@
+package top.sanscraft.icerings.sphere;
+
+/**
+ * A unit of sphere block work that can be processed a slice at a time by the work queue
+ */
+public abstract class SphereJob {
+    
+    private volatile boolean cancelled;
+    private long workNanos;
+    
+    /**
+     * Processes up to the given number of blocks
+     * @return the number of blocks processed
+     */
+    protected abstract int process(int maxBlocks);
+    
+    /**
+     * Gets the sphere whose blocks this job writes
+     */
+    public abstract SphereData getSphere();
+    
+    /**
+     * Gets the number of blocks this job still has to process
+     */
+    public abstract int getRemainingBlocks();
+    
+    /**
+     * Checks if the job can process blocks yet. Jobs that aren't ready are skipped by the queue until they are.
+     */
+    protected boolean isReady() {
+        return true;
+    }
+    
+    /**
+     * Called once after the last block has been processed
+     */
+    protected void onComplete() {
+    }
+    
+    /**
+     * Processes a slice, adding the time spent to the job's total work time
+     */
+    int processTimed(int maxBlocks) {
+        long start = System.nanoTime();
+        try {
+            return process(maxBlocks);
+        } finally {
+            workNanos += System.nanoTime() - start;
+        }
+    }
+    
+    /**
+     * Processes every remaining block immediately, ignoring the tick budget
+     */
+    public void runToCompletion() {
+        while (!cancelled && getRemainingBlocks() > 0) {
+            processTimed(Integer.MAX_VALUE);
+        }
+        if (!cancelled) {
+            onComplete();
+        }
+    }
+    
+    public void cancel() {
+        cancelled = true;
+    }
+    
+    public boolean isCancelled() {
+        return cancelled;
+    }
+    
+    /**
+     * Gets the total time spent processing this job so far, across all slices
+     */
+    public long getWorkNanos() {
+        return workNanos;
+    }
+}
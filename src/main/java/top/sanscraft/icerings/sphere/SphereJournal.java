@@ -0,0 +1,730 @@
+package top.sanscraft.icerings.sphere;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Material;
+import org.bukkit.World;
+import org.bukkit.block.data.BlockData;
+import org.bukkit.plugin.Plugin;
+import top.sanscraft.icerings.scheduler.SphereScheduler;
+import top.sanscraft.icerings.utils.IceRingsUtils;
+import top.sanscraft.icerings.utils.SphereShellCache;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only binary journal of live spheres, used to restore shells left in the world by a crash.
+ * The main thread only queues small records; a background thread batches them to disk, syncs the file
+ * and periodically compacts it down to the spheres that are still live.
+ * Each record is framed with its length and a CRC32 of its contents. A crash can leave a torn or
+ * zero-filled tail, so replay stops at the first record that is cut short, fails its checksum or
+ * doesn't fit its sphere, and restores everything read before it.
+ * Ghost spheres never touch the world, so they are not journaled.
+ */
+public class SphereJournal {
+
+    private static final int MAGIC = 0x49434A4C; // "ICJL"
+    private static final int FORMAT_VERSION = 3;
+    // Version 2 journals wrote records without a length or checksum, they are still replayed
+    private static final int UNFRAMED_FORMAT_VERSION = 2;
+    // Version 1 journals stored originals as material names only, they are still replayed
+    private static final int LEGACY_FORMAT_VERSION = 1;
+
+    private static final byte CREATE = 1;
+    private static final byte BLOCKS = 2;
+    private static final byte BREAK = 3;
+    private static final byte EXPIRE = 4;
+    private static final byte BREAKS = 5;
+    private static final byte RESCHEDULE = 6;
+
+    // Palette index written for a block that was destroyed and must not be restored
+    private static final int NO_ORIGINAL = 0xFFFF;
+
+    private final Plugin plugin;
+    private final File file;
+    private final Queue<Entry> pending = new ConcurrentLinkedQueue<>();
+
+    // Spheres the journal still considers live, only touched by the writer thread once open
+    private final Map<UUID, JournalSphere> live = new HashMap<>();
+
+    private boolean enabled;
+    private long flushIntervalMillis;
+    private long compactThresholdBytes;
+    private ScheduledExecutorService writer;
+    private FileChannel channel;
+    private long bytesSinceCompaction;
+
+    public SphereJournal(Plugin plugin) {
+        this.plugin = plugin;
+        this.file = new File(plugin.getDataFolder(), "spheres.journal");
+        this.enabled = plugin.getConfig().getBoolean("journal.enabled", true);
+        this.flushIntervalMillis = Math.max(50, plugin.getConfig().getLong("journal.flush-interval-millis", 1000));
+        this.compactThresholdBytes = Math.max(16, plugin.getConfig().getLong("journal.compact-threshold-kb", 1024)) * 1024L;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Restores the blocks of every sphere left in the journal by a previous run.
+     * Blocks in unloaded chunks are deferred until their chunk loads, and spheres in worlds
+     * that are not loaded are kept for the next startup. On region-threaded servers, blocks in
+     * regions the current thread doesn't own are deferred too.
+     * Must be called on the main thread before the journal is opened.
+     * @return the number of spheres restored
+     */
+    public int replay(IceRingsUtils iceRingsUtils, DeferredRestorations deferred, SphereScheduler scheduler) {
+        if (!file.exists()) {
+            return 0;
+        }
+
+        try {
+            readJournal();
+        } catch (IOException e) {
+            plugin.getLogger().log(Level.WARNING, "Could not read sphere journal, leftover spheres were not restored", e);
+            return 0;
+        }
+
+        int restored = 0;
+        int carriedOver = 0;
+        int deferredBlocks = deferred.size();
+        Iterator<JournalSphere> iterator = live.values().iterator();
+        while (iterator.hasNext()) {
+            JournalSphere sphere = iterator.next();
+            World world = Bukkit.getWorld(sphere.worldId);
+            if (world == null) {
+                carriedOver++;
+                continue;
+            }
+
+            boolean waiting = false;
+            for (int slot = 0; slot < sphere.count; slot++) {
+                BlockData original = sphere.originals.get(slot);
+                if (original == null) {
+                    continue;
+                }
+                int x = sphere.centerX + SphereShellCache.unpackX(sphere.offsets[slot]);
+                int y = sphere.centerY + SphereShellCache.unpackY(sphere.offsets[slot]);
+                int z = sphere.centerZ + SphereShellCache.unpackZ(sphere.offsets[slot]);
+                // Blocks in regions owned by other threads are restored through the deferred queue
+                if (world.isChunkLoaded(x >> 4, z >> 4) && scheduler.isOwnedByCurrentThread(world, x >> 4, z >> 4)) {
+                    iceRingsUtils.restoreOriginalBlock(world.getBlockAt(x, y, z), original);
+                } else {
+                    deferred.defer(sphere.worldId, x, y, z, original, sphere.sphereId);
+                    waiting = true;
+                }
+            }
+
+            // Spheres with deferred blocks stay journaled until those are applied
+            if (waiting) {
+                deferred.complete(sphere.sphereId);
+            } else {
+                iterator.remove();
+            }
+            restored++;
+        }
+
+        deferredBlocks = deferred.size() - deferredBlocks;
+        if (deferredBlocks > 0) {
+            plugin.getLogger().info(deferredBlocks + " journaled sphere block(s) will be restored when their chunks load");
+        }
+
+        if (carriedOver > 0) {
+            plugin.getLogger().warning(carriedOver + " journaled ice sphere(s) are in worlds that are not loaded, keeping them for next startup");
+        }
+        return restored;
+    }
+
+    /**
+     * Opens the journal for writing and starts the background writer
+     */
+    public void open() {
+        if (!enabled) {
+            if (live.isEmpty()) {
+                file.delete();
+            }
+            return;
+        }
+
+        try {
+            plugin.getDataFolder().mkdirs();
+            compact(); // Start from a fresh file holding only carried-over spheres
+        } catch (IOException e) {
+            plugin.getLogger().log(Level.SEVERE, "Could not open sphere journal, crash recovery is disabled", e);
+            enabled = false;
+            return;
+        }
+
+        writer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "IceRings-Journal");
+            thread.setDaemon(true);
+            return thread;
+        });
+        writer.scheduleWithFixedDelay(this::flushSafely, flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops the background writer, writing out anything still queued
+     */
+    public void close() {
+        if (writer == null) {
+            return;
+        }
+
+        writer.shutdown();
+        try {
+            writer.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        writer = null;
+
+        flushSafely();
+        try {
+            compact();
+            channel.close();
+        } catch (IOException e) {
+            plugin.getLogger().log(Level.WARNING, "Could not close sphere journal", e);
+        }
+        channel = null;
+    }
+
+    /**
+     * Records a new sphere before any of its blocks are written
+     */
+    public void recordCreate(SphereData sphere, long expiryMillis) {
+        if (!enabled || sphere.isGhost()) return;
+        Entry entry = new Entry(CREATE, sphere.getSphereId());
+        entry.worldId = sphere.getWorldId();
+        entry.centerX = sphere.getCenterX();
+        entry.centerY = sphere.getCenterY();
+        entry.centerZ = sphere.getCenterZ();
+        entry.radius = sphere.getRadius();
+        entry.expiryMillis = expiryMillis;
+        pending.add(entry);
+    }
+
+    /**
+     * Records that a live sphere's lifetime was changed to end at a new time
+     */
+    public void recordReschedule(SphereData sphere, long expiryMillis) {
+        if (!enabled || sphere.isGhost()) return;
+        Entry entry = new Entry(RESCHEDULE, sphere.getSphereId());
+        entry.expiryMillis = expiryMillis;
+        pending.add(entry);
+    }
+
+    /**
+     * Records the blocks a sphere replaced in the slot range [fromSlot, toSlot)
+     */
+    public void recordBlocks(SphereData sphere, int fromSlot, int toSlot) {
+        if (!enabled || sphere.isGhost() || fromSlot >= toSlot) return;
+        Entry entry = new Entry(BLOCKS, sphere.getSphereId());
+        entry.slot = fromSlot;
+        entry.offsets = new int[toSlot - fromSlot];
+        entry.originals = new BlockData[toSlot - fromSlot];
+        for (int slot = fromSlot; slot < toSlot; slot++) {
+            entry.offsets[slot - fromSlot] = sphere.getOffset(slot);
+            entry.originals[slot - fromSlot] = sphere.getOriginal(slot);
+        }
+        pending.add(entry);
+    }
+
+    /**
+     * Records that a sphere block was destroyed and must not be restored
+     */
+    public void recordBreak(SphereData sphere, int slot) {
+        if (!enabled || sphere.isGhost()) return;
+        Entry entry = new Entry(BREAK, sphere.getSphereId());
+        entry.slot = slot;
+        pending.add(entry);
+    }
+
+    /**
+     * Records that several blocks of a sphere were destroyed at once, as a single record
+     */
+    public void recordBreaks(SphereData sphere, int[] slots, int count) {
+        if (!enabled || sphere.isGhost() || count == 0) return;
+        Entry entry = new Entry(BREAKS, sphere.getSphereId());
+        entry.slots = Arrays.copyOf(slots, count);
+        pending.add(entry);
+    }
+
+    /**
+     * Records that a sphere is gone and its blocks no longer need restoring
+     */
+    public void recordExpire(SphereData sphere) {
+        if (sphere.isGhost()) return;
+        recordExpire(sphere.getSphereId());
+    }
+
+    void recordExpire(UUID sphereId) {
+        if (!enabled) return;
+        pending.add(new Entry(EXPIRE, sphereId));
+    }
+
+    private void flushSafely() {
+        try {
+            flush();
+            if (bytesSinceCompaction >= compactThresholdBytes) {
+                compact();
+            }
+        } catch (IOException e) {
+            plugin.getLogger().log(Level.WARNING, "Could not write sphere journal", e);
+        }
+    }
+
+    /**
+     * Writes every queued record in one batch and syncs the file
+     */
+    private void flush() throws IOException {
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(4096);
+        DataOutputStream out = new DataOutputStream(bytes);
+        Entry entry;
+        while ((entry = pending.poll()) != null) {
+            entry.apply(live);
+            writeRecord(out, entry);
+        }
+        out.flush();
+
+        ByteBuffer buffer = ByteBuffer.wrap(bytes.toByteArray());
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        channel.force(false);
+        bytesSinceCompaction += bytes.size();
+    }
+
+    /**
+     * Rewrites the journal with only the spheres that are still live
+     */
+    private void compact() throws IOException {
+        File temp = new File(file.getParentFile(), file.getName() + ".tmp");
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(4096);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(MAGIC);
+        out.writeInt(FORMAT_VERSION);
+        for (JournalSphere sphere : live.values()) {
+            writeRecord(out, sphere.toCreateEntry());
+            writeRecord(out, sphere.toBlocksEntry());
+        }
+        out.flush();
+
+        try (FileChannel tempChannel = FileChannel.open(temp.toPath(),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.wrap(bytes.toByteArray());
+            while (buffer.hasRemaining()) {
+                tempChannel.write(buffer);
+            }
+            tempChannel.force(true);
+        }
+
+        if (channel != null) {
+            channel.close();
+        }
+        Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        bytesSinceCompaction = 0;
+    }
+
+    /**
+     * Writes a record framed with its length and checksum
+     */
+    private static void writeRecord(DataOutputStream out, Entry entry) throws IOException {
+        ByteArrayOutputStream payload = new ByteArrayOutputStream(64);
+        entry.write(new DataOutputStream(payload));
+        byte[] bytes = payload.toByteArray();
+        CRC32 crc = new CRC32();
+        crc.update(bytes);
+        out.writeInt(bytes.length);
+        out.writeInt((int) crc.getValue());
+        out.write(bytes);
+    }
+
+    /**
+     * Reads a framed record, checking its length and checksum before parsing it
+     */
+    private static Entry readRecord(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        int checksum = in.readInt();
+        if (length <= 0 || length > in.available()) {
+            throw new EOFException("Record length " + length + " is not within the rest of the journal");
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        CRC32 crc = new CRC32();
+        crc.update(bytes);
+        if ((int) crc.getValue() != checksum) {
+            throw new IOException("Record checksum does not match");
+        }
+        DataInputStream payload = new DataInputStream(new ByteArrayInputStream(bytes));
+        Entry entry = Entry.read(payload, FORMAT_VERSION);
+        if (payload.available() > 0) {
+            throw new IOException("Record is longer than its contents");
+        }
+        return entry;
+    }
+
+    /**
+     * Reads the journal into the live spheres. The file is read whole, so every length in it can be
+     * checked against the bytes actually left before anything is allocated for it.
+     */
+    private void readJournal() throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(Files.readAllBytes(file.toPath())));
+        int version;
+        try {
+            version = in.readInt() == MAGIC ? in.readInt() : -1;
+        } catch (EOFException e) {
+            return; // Empty or truncated header, nothing to replay
+        }
+        if (version != FORMAT_VERSION && version != UNFRAMED_FORMAT_VERSION && version != LEGACY_FORMAT_VERSION) {
+            plugin.getLogger().warning("Sphere journal has an unknown format, ignoring it");
+            return;
+        }
+
+        int records = 0;
+        while (in.available() > 0) {
+            Entry entry;
+            try {
+                entry = version == FORMAT_VERSION ? readRecord(in) : Entry.read(in, version);
+                if (!entry.fits(live)) {
+                    throw new IOException("Record of type " + entry.type + " does not fit its sphere");
+                }
+            } catch (IOException | RuntimeException e) {
+                // A torn or zero-filled tail left by a crash ends the log, like the end of the file
+                plugin.getLogger().warning("Sphere journal ends with a damaged record after " + records
+                    + " good record(s), replaying those (" + e.getMessage() + ")");
+                break;
+            }
+            entry.apply(live);
+            records++;
+        }
+    }
+
+    /**
+     * A single journal record
+     */
+    private static final class Entry {
+        private final byte type;
+        private final UUID sphereId;
+        private UUID worldId;
+        private int centerX;
+        private int centerY;
+        private int centerZ;
+        private int radius;
+        private long expiryMillis;
+        private int slot;
+        private int[] slots;
+        private int[] offsets;
+        private BlockData[] originals;
+
+        private Entry(byte type, UUID sphereId) {
+            this.type = type;
+            this.sphereId = sphereId;
+        }
+
+        /**
+         * Checks a record read back from disk is consistent with the sphere it belongs to,
+         * with every slot inside the sphere's shell
+         */
+        private boolean fits(Map<UUID, JournalSphere> live) {
+            if (type == CREATE) {
+                return radius >= 0 && radius <= SphereShellCache.MAX_RADIUS;
+            }
+            JournalSphere sphere = live.get(sphereId);
+            if (sphere == null) {
+                return true; // Records of spheres already expired are skipped by apply
+            }
+            int shellSize = sphere.getShellSize();
+            switch (type) {
+                case BLOCKS:
+                    return slot >= 0 && slot <= shellSize - offsets.length;
+                case BREAK:
+                    return slot >= 0 && slot < shellSize;
+                case BREAKS:
+                    for (int broken : slots) {
+                        if (broken < 0 || broken >= shellSize) {
+                            return false;
+                        }
+                    }
+                    return true;
+                default:
+                    return true;
+            }
+        }
+
+        private void apply(Map<UUID, JournalSphere> live) {
+            switch (type) {
+                case CREATE:
+                    live.put(sphereId, new JournalSphere(this));
+                    break;
+                case BLOCKS: {
+                    JournalSphere sphere = live.get(sphereId);
+                    if (sphere != null) {
+                        sphere.setBlocks(slot, offsets, originals);
+                    }
+                    break;
+                }
+                case BREAK: {
+                    JournalSphere sphere = live.get(sphereId);
+                    if (sphere != null && slot < sphere.count) {
+                        sphere.originals.set(slot, null);
+                    }
+                    break;
+                }
+                case BREAKS: {
+                    JournalSphere sphere = live.get(sphereId);
+                    if (sphere != null) {
+                        for (int broken : slots) {
+                            if (broken < sphere.count) {
+                                sphere.originals.set(broken, null);
+                            }
+                        }
+                    }
+                    break;
+                }
+                case RESCHEDULE: {
+                    JournalSphere sphere = live.get(sphereId);
+                    if (sphere != null) {
+                        sphere.expiryMillis = expiryMillis;
+                    }
+                    break;
+                }
+                case EXPIRE:
+                    live.remove(sphereId);
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        private void write(DataOutputStream out) throws IOException {
+            out.writeByte(type);
+            out.writeLong(sphereId.getMostSignificantBits());
+            out.writeLong(sphereId.getLeastSignificantBits());
+
+            switch (type) {
+                case CREATE:
+                    out.writeLong(worldId.getMostSignificantBits());
+                    out.writeLong(worldId.getLeastSignificantBits());
+                    out.writeInt(centerX);
+                    out.writeInt(centerY);
+                    out.writeInt(centerZ);
+                    out.writeInt(radius);
+                    out.writeLong(expiryMillis);
+                    break;
+                case BLOCKS: {
+                    // Original block states are written as a small palette plus one index per block
+                    Map<BlockData, Integer> palette = new HashMap<>();
+                    for (BlockData original : originals) {
+                        if (original != null) {
+                            palette.putIfAbsent(original, palette.size());
+                        }
+                    }
+                    out.writeInt(slot);
+                    out.writeInt(offsets.length);
+                    out.writeShort(palette.size());
+                    BlockData[] byIndex = new BlockData[palette.size()];
+                    for (Map.Entry<BlockData, Integer> paletteEntry : palette.entrySet()) {
+                        byIndex[paletteEntry.getValue()] = paletteEntry.getKey();
+                    }
+                    for (BlockData data : byIndex) {
+                        out.writeUTF(data.getAsString());
+                    }
+                    for (int i = 0; i < offsets.length; i++) {
+                        out.writeInt(offsets[i]);
+                        out.writeShort(originals[i] == null ? NO_ORIGINAL : palette.get(originals[i]));
+                    }
+                    break;
+                }
+                case BREAK:
+                    out.writeInt(slot);
+                    break;
+                case RESCHEDULE:
+                    out.writeLong(expiryMillis);
+                    break;
+                case BREAKS:
+                    out.writeInt(slots.length);
+                    for (int broken : slots) {
+                        out.writeInt(broken);
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        private static Entry read(DataInputStream in, int version) throws IOException {
+            byte type = in.readByte();
+            Entry entry = new Entry(type, new UUID(in.readLong(), in.readLong()));
+
+            switch (type) {
+                case CREATE:
+                    entry.worldId = new UUID(in.readLong(), in.readLong());
+                    entry.centerX = in.readInt();
+                    entry.centerY = in.readInt();
+                    entry.centerZ = in.readInt();
+                    entry.radius = in.readInt();
+                    entry.expiryMillis = in.readLong();
+                    break;
+                case BLOCKS: {
+                    entry.slot = in.readInt();
+                    int count = in.readInt();
+                    // Each block takes 6 bytes and each palette entry at least 2
+                    if (count < 0 || count > in.available() / 6) {
+                        throw new IOException("Block count " + count + " runs past the end of the record");
+                    }
+                    BlockData[] palette = new BlockData[in.readUnsignedShort()];
+                    for (int i = 0; i < palette.length; i++) {
+                        palette[i] = parseBlockData(in.readUTF(), version);
+                    }
+                    entry.offsets = new int[count];
+                    entry.originals = new BlockData[count];
+                    for (int i = 0; i < count; i++) {
+                        entry.offsets[i] = in.readInt();
+                        int index = in.readUnsignedShort();
+                        if (index != NO_ORIGINAL && index >= palette.length) {
+                            throw new IOException("Palette index " + index + " is out of range");
+                        }
+                        entry.originals[i] = index == NO_ORIGINAL ? null : palette[index];
+                    }
+                    break;
+                }
+                case BREAK:
+                    entry.slot = in.readInt();
+                    break;
+                case RESCHEDULE:
+                    entry.expiryMillis = in.readLong();
+                    break;
+                case BREAKS: {
+                    int count = in.readInt();
+                    if (count < 0 || count > in.available() / 4) {
+                        throw new IOException("Break count " + count + " runs past the end of the record");
+                    }
+                    entry.slots = new int[count];
+                    for (int i = 0; i < entry.slots.length; i++) {
+                        entry.slots[i] = in.readInt();
+                    }
+                    break;
+                }
+                case EXPIRE:
+                    break;
+                default:
+                    throw new IOException("Unknown sphere journal record type " + type);
+            }
+            return entry;
+        }
+
+        /**
+         * Parses a palette entry, a block data string or a material name in legacy journals.
+         * Entries the server no longer understands are dropped rather than failing the whole replay.
+         */
+        private static BlockData parseBlockData(String value, int version) {
+            try {
+                if (version == LEGACY_FORMAT_VERSION) {
+                    Material material = Material.getMaterial(value);
+                    return material == null ? null : Bukkit.createBlockData(material);
+                }
+                return Bukkit.createBlockData(value);
+            } catch (IllegalArgumentException e) {
+                return null;
+            }
+        }
+    }
+
+    /**
+     * The journal's own copy of a live sphere, used for replay and compaction
+     */
+    private static final class JournalSphere {
+        private final UUID sphereId;
+        private final UUID worldId;
+        private final int centerX;
+        private final int centerY;
+        private final int centerZ;
+        private final int radius;
+        private long expiryMillis;
+        private int[] offsets = new int[0];
+        private final OriginalBlockPalette originals = new OriginalBlockPalette(16);
+        private int count;
+        private int shellSize = -1;
+
+        private JournalSphere(Entry create) {
+            this.sphereId = create.sphereId;
+            this.worldId = create.worldId;
+            this.centerX = create.centerX;
+            this.centerY = create.centerY;
+            this.centerZ = create.centerZ;
+            this.radius = create.radius;
+            this.expiryMillis = create.expiryMillis;
+        }
+
+        private int getShellSize() {
+            if (shellSize < 0) {
+                shellSize = SphereRegistry.getShellSize(radius);
+            }
+            return shellSize;
+        }
+
+        private void setBlocks(int fromSlot, int[] newOffsets, BlockData[] newOriginals) {
+            int end = fromSlot + newOffsets.length;
+            if (end > offsets.length) {
+                offsets = Arrays.copyOf(offsets, Math.max(end, offsets.length * 2));
+            }
+            System.arraycopy(newOffsets, 0, offsets, fromSlot, newOffsets.length);
+            for (int i = 0; i < newOriginals.length; i++) {
+                originals.set(fromSlot + i, newOriginals[i]);
+            }
+            count = Math.max(count, end);
+        }
+
+        private Entry toCreateEntry() {
+            Entry entry = new Entry(CREATE, sphereId);
+            entry.worldId = worldId;
+            entry.centerX = centerX;
+            entry.centerY = centerY;
+            entry.centerZ = centerZ;
+            entry.radius = radius;
+            entry.expiryMillis = expiryMillis;
+            return entry;
+        }
+
+        private Entry toBlocksEntry() {
+            Entry entry = new Entry(BLOCKS, sphereId);
+            entry.slot = 0;
+            entry.offsets = Arrays.copyOf(offsets, count);
+            entry.originals = new BlockData[count];
+            for (int slot = 0; slot < count; slot++) {
+                entry.originals[slot] = originals.get(slot);
+            }
+            return entry;
+        }
+    }
+}
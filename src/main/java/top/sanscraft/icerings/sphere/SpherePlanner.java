@@ -0,0 +1,166 @@
+package top.sanscraft.icerings.sphere;
+
+import org.bukkit.ChunkSnapshot;
+import org.bukkit.Material;
+import org.bukkit.World;
+import org.bukkit.block.data.BlockData;
+import org.bukkit.plugin.Plugin;
+import top.sanscraft.icerings.scheduler.SphereScheduler;
+import top.sanscraft.icerings.utils.IceRingsUtils;
+import top.sanscraft.icerings.utils.ReplaceableBlockMatcher;
+import top.sanscraft.icerings.utils.SphereShellCache;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Works out which shell blocks of a new sphere can be replaced, off the server thread.
+ * The chunks under the shell are snapshotted on the thread placing the sphere, then a worker reads
+ * and classifies every shell block from the snapshots and records its original state.
+ * The build job writes the planned blocks, checking each one is still what was planned, and classifies
+ * the blocks that weren't replaceable in the snapshot again, since they may have been mined since.
+ * Only chunks that are loaded, and on Folia owned by the placing thread, are snapshotted; a sphere
+ * reaching any other chunk is left for its build job to classify as it goes.
+ */
+public class SpherePlanner {
+    
+    private final Plugin plugin;
+    private final IceRingsUtils iceRingsUtils;
+    private final SphereScheduler scheduler;
+    private ExecutorService executor;
+    
+    public SpherePlanner(Plugin plugin, IceRingsUtils iceRingsUtils, SphereScheduler scheduler) {
+        this.plugin = plugin;
+        this.iceRingsUtils = iceRingsUtils;
+        this.scheduler = scheduler;
+    }
+    
+    /**
+     * Starts the planning threads. With 0 threads configured, spheres are planned by their build job instead.
+     */
+    public void start() {
+        // Planning threads on a host without a spare core would only take time from the server thread
+        int threads = Math.min(Math.max(0, plugin.getConfig().getInt("performance.planner-threads", 2)),
+            Runtime.getRuntime().availableProcessors() - 1);
+        if (executor == null && threads > 0) {
+            AtomicInteger count = new AtomicInteger();
+            executor = Executors.newFixedThreadPool(threads, runnable -> {
+                Thread thread = new Thread(runnable, "IceRings Sphere Planner #" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+    
+    /**
+     * Stops the planning threads, dropping plans not yet started
+     */
+    public void stop() {
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+    }
+    
+    /**
+     * Snapshots the chunks under a sphere's shell and plans it on a worker thread.
+     * Must be called on the thread owning the sphere's chunks.
+     * @return the plan, or null if planning is disabled or the shell reaches a chunk that can't be snapshotted
+     */
+    public CompletableFuture<Plan> plan(SphereData sphere, World world) {
+        if (executor == null) {
+            return null;
+        }
+        
+        int radius = sphere.getRadius();
+        int minChunkX = (sphere.getCenterX() - radius) >> 4;
+        int minChunkZ = (sphere.getCenterZ() - radius) >> 4;
+        int width = ((sphere.getCenterX() + radius) >> 4) - minChunkX + 1;
+        int depth = ((sphere.getCenterZ() + radius) >> 4) - minChunkZ + 1;
+        // Check every chunk first, so a sphere that can't be planned takes no snapshots
+        for (int cx = 0; cx < width; cx++) {
+            for (int cz = 0; cz < depth; cz++) {
+                int chunkX = minChunkX + cx;
+                int chunkZ = minChunkZ + cz;
+                // Loading a chunk here would stall the placing thread, and on Folia the chunk may belong to another region
+                if (!world.isChunkLoaded(chunkX, chunkZ) || !scheduler.isOwnedByCurrentThread(world, chunkX, chunkZ)) {
+                    return null;
+                }
+            }
+        }
+        ChunkSnapshot[] snapshots = new ChunkSnapshot[width * depth];
+        for (int cx = 0; cx < width; cx++) {
+            for (int cz = 0; cz < depth; cz++) {
+                snapshots[cx * depth + cz] = world.getChunkAt(minChunkX + cx, minChunkZ + cz)
+                    .getChunkSnapshot(false, false, false);
+            }
+        }
+        int minY = world.getMinHeight();
+        int maxY = world.getMaxHeight();
+        ReplaceableBlockMatcher matcher = iceRingsUtils.getReplaceableBlocks();
+        
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                int[] shell = SphereShellCache.getShell(radius, sphere.getCenterX(), sphere.getCenterZ());
+                Plan plan = new Plan(shell.length);
+                for (int offset : shell) {
+                    int x = sphere.getCenterX() + SphereShellCache.unpackX(offset);
+                    int y = sphere.getCenterY() + SphereShellCache.unpackY(offset);
+                    int z = sphere.getCenterZ() + SphereShellCache.unpackZ(offset);
+                    if (y < minY || y >= maxY) {
+                        continue;
+                    }
+                    
+                    ChunkSnapshot snapshot = snapshots[((x >> 4) - minChunkX) * depth + ((z >> 4) - minChunkZ)];
+                    Material type = snapshot.getBlockType(x & 15, y, z & 15);
+                    // Blocks that can't be replaced yet stay in the plan, they may be mined before the build
+                    plan.add(offset, matcher.canReplace(type) ? snapshot.getBlockData(x & 15, y, z & 15) : null);
+                }
+                return plan;
+            }, executor);
+        } catch (RejectedExecutionException e) {
+            return null; // Shutting down, the build job plans the sphere itself
+        }
+    }
+    
+    /**
+     * The shell blocks of a sphere inside the world's height, in shell order, with the original states
+     * of those that were replaceable in the snapshot
+     */
+    public static final class Plan {
+        private final int[] offsets;
+        private final BlockData[] originals;
+        private int size;
+        
+        // Sized for the whole shell, the most blocks a plan can hold
+        private Plan(int shellSize) {
+            offsets = new int[shellSize];
+            originals = new BlockData[shellSize];
+        }
+        
+        private void add(int offset, BlockData original) {
+            offsets[size] = offset;
+            originals[size] = original;
+            size++;
+        }
+        
+        int getOffset(int index) {
+            return offsets[index];
+        }
+        
+        /**
+         * Gets the planned original state of a block, or null if it wasn't replaceable in the snapshot
+         * and must be classified again when built
+         */
+        BlockData getOriginal(int index) {
+            return originals[index];
+        }
+        
+        public int size() {
+            return size;
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package top.sanscraft.icerings.sphere;
+
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+import org.bukkit.util.BoundingBox;
+import top.sanscraft.icerings.api.IceSphere;
+import top.sanscraft.icerings.api.IceSphereQuery;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * The sphere query service handed to other plugins.
+ * Block lookups go to the block index, sphere lookups to the registry's spatial index.
+ */
+public class SphereQueryService implements IceSphereQuery {
+    
+    private final SphereSpatialIndex spatialIndex;
+    private final SphereBlockIndex blockIndex;
+    
+    public SphereQueryService(SphereSpatialIndex spatialIndex, SphereBlockIndex blockIndex) {
+        this.spatialIndex = spatialIndex;
+        this.blockIndex = blockIndex;
+    }
+    
+    @Override
+    public boolean isSphereBlock(World world, int x, int y, int z) {
+        return blockIndex.get(world.getUID(), x, y, z) != SphereBlockIndex.NO_CELL;
+    }
+    
+    @Override
+    public boolean isSphereBlock(Block block) {
+        return isSphereBlock(block.getWorld(), block.getX(), block.getY(), block.getZ());
+    }
+    
+    @Override
+    public List<IceSphere> spheresIntersecting(World world, BoundingBox box) {
+        // A block at x covers [x, x + 1), so a box ending exactly on a block edge doesn't reach that block
+        int minX = (int) Math.floor(box.getMinX());
+        int minY = (int) Math.floor(box.getMinY());
+        int minZ = (int) Math.floor(box.getMinZ());
+        int maxX = Math.max(minX, (int) Math.ceil(box.getMaxX()) - 1);
+        int maxY = Math.max(minY, (int) Math.ceil(box.getMaxY()) - 1);
+        int maxZ = Math.max(minZ, (int) Math.ceil(box.getMaxZ()) - 1);
+        List<IceSphere> result = new ArrayList<>();
+        spatialIndex.collect(world.getUID(), minX, minY, minZ, maxX, maxY, maxZ, result);
+        return result;
+    }
+    
+    @Override
+    public List<IceSphere> spheresNear(Location location, double distance) {
+        World world = location.getWorld();
+        if (world == null || distance < 0) {
+            return new ArrayList<>();
+        }
+        
+        // Candidates from the box around the location, then the ones whose shell is really in reach
+        double x = location.getX();
+        double y = location.getY();
+        double z = location.getZ();
+        List<IceSphere> candidates = new ArrayList<>();
+        spatialIndex.collect(world.getUID(),
+            (int) Math.floor(x - distance), (int) Math.floor(y - distance), (int) Math.floor(z - distance),
+            (int) Math.floor(x + distance), (int) Math.floor(y + distance), (int) Math.floor(z + distance), candidates);
+        
+        List<IceSphere> result = new ArrayList<>(candidates.size());
+        for (IceSphere sphere : candidates) {
+            // Shell blocks reach up to a block past the radius from the center
+            double reach = distance + sphere.getRadius() + 1;
+            if (centerDistanceSquared(sphere, x, y, z) <= reach * reach) {
+                result.add(sphere);
+            }
+        }
+        result.sort(Comparator.comparingDouble(sphere -> centerDistanceSquared(sphere, x, y, z)));
+        return result;
+    }
+    
+    @Override
+    public List<IceSphere> spheresOwnedBy(UUID ownerId) {
+        return spatialIndex.getOwnedBy(ownerId);
+    }
+    
+    private static double centerDistanceSquared(IceSphere sphere, double x, double y, double z) {
+        double dx = x - (sphere.getCenterX() + 0.5);
+        double dy = y - (sphere.getCenterY() + 0.5);
+        double dz = z - (sphere.getCenterZ() + 0.5);
+        return dx * dx + dy * dy + dz * dz;
+    }
+}
@@ -0,0 +1,136 @@
+package top.sanscraft.icerings.sphere;
+
+import org.bukkit.Location;
+import top.sanscraft.icerings.utils.SphereShellCache;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Tracks live spheres by UUID and by a small integer handle.
+ * Handles are what the block index stores, and are reused after a sphere is removed.
+ * Also keeps the number of live spheres per owner, the shell blocks reserved by all of them
+ * and a spatial index of their bounds.
+ * Spheres may be created and removed from any region thread, so changes are synchronized
+ * and handle lookups read a volatile snapshot of the handle table.
+ */
+public class SphereRegistry {
+    
+    private final Map<UUID, SphereData> spheresById = new ConcurrentHashMap<>();
+    private volatile SphereData[] spheresByHandle = new SphereData[64];
+    private int[] freeHandles = new int[16];
+    private int freeCount;
+    private int nextHandle = 1; // 0 is never a valid handle
+    
+    // Live sphere counts by owner
+    private final Map<UUID, Integer> ownerCounts = new HashMap<>();
+    // Shell size of every live sphere added up, the most blocks they can hold together
+    private long reservedBlocks;
+    // Bounds of live spheres, for the query API
+    private final SphereSpatialIndex spatialIndex = new SphereSpatialIndex();
+    
+    // Handles are packed into 24 bits of a block index cell
+    private static final int MAX_HANDLE = 0xFFFFFF;
+    
+    /**
+     * Registers a new sphere centered on the given block location
+     * @param ghost true if the shell is only shown to clients instead of written to the world
+     */
+    public synchronized SphereData create(UUID ownerId, Location center, int radius, boolean ghost) {
+        if (freeCount == 0 && nextHandle > MAX_HANDLE) {
+            throw new IllegalStateException("Too many live ice spheres");
+        }
+        int handle = freeCount > 0 ? freeHandles[--freeCount] : nextHandle++;
+        SphereData[] byHandle = spheresByHandle;
+        if (handle >= byHandle.length) {
+            byHandle = Arrays.copyOf(byHandle, byHandle.length * 2);
+        }
+        
+        SphereData sphere = new SphereData(UUID.randomUUID(), handle, ownerId, System.currentTimeMillis(),
+            center.getWorld().getUID(), center.getBlockX(), center.getBlockY(), center.getBlockZ(), radius, ghost);
+        byHandle[handle] = sphere;
+        spheresByHandle = byHandle; // Publishes the new entry
+        spheresById.put(sphere.getSphereId(), sphere);
+        ownerCounts.merge(ownerId, 1, Integer::sum);
+        reservedBlocks += getShellSize(radius);
+        spatialIndex.add(sphere.getView());
+        return sphere;
+    }
+    
+    public SphereData get(UUID sphereId) {
+        return spheresById.get(sphereId);
+    }
+    
+    public SphereData get(int handle) {
+        SphereData[] byHandle = spheresByHandle;
+        return handle > 0 && handle < byHandle.length ? byHandle[handle] : null;
+    }
+    
+    /**
+     * Removes a sphere and frees its handle. The caller must already have cleared its index entries.
+     */
+    public synchronized boolean remove(SphereData sphere) {
+        if (spheresById.remove(sphere.getSphereId()) == null) {
+            return false;
+        }
+        spheresByHandle[sphere.getHandle()] = null;
+        if (freeCount == freeHandles.length) {
+            freeHandles = Arrays.copyOf(freeHandles, freeCount * 2);
+        }
+        freeHandles[freeCount++] = sphere.getHandle();
+        ownerCounts.computeIfPresent(sphere.getOwnerId(), (owner, count) -> count > 1 ? count - 1 : null);
+        reservedBlocks -= getShellSize(sphere.getRadius());
+        spatialIndex.remove(sphere.getView());
+        return true;
+    }
+    
+    public Collection<SphereData> values() {
+        return spheresById.values();
+    }
+    
+    public int size() {
+        return spheresById.size();
+    }
+    
+    /**
+     * Gets the number of live spheres owned by a player
+     */
+    public synchronized int getOwnerCount(UUID ownerId) {
+        return ownerCounts.getOrDefault(ownerId, 0);
+    }
+    
+    /**
+     * Gets the shell blocks reserved by all live spheres, an upper bound on the blocks they hold
+     */
+    public synchronized long getReservedBlocks() {
+        return reservedBlocks;
+    }
+    
+    /**
+     * Gets the number of blocks in the shell of a sphere with the given radius
+     */
+    public static int getShellSize(int radius) {
+        return SphereShellCache.getShell(radius).length;
+    }
+    
+    public synchronized void clear() {
+        spheresById.clear();
+        Arrays.fill(spheresByHandle, null);
+        freeCount = 0;
+        nextHandle = 1;
+        ownerCounts.clear();
+        reservedBlocks = 0;
+        spatialIndex.clear();
+    }
+    
+    /**
+     * Gets the index of live sphere bounds
+     */
+    public SphereSpatialIndex getSpatialIndex() {
+        return spatialIndex;
+    }
+}
@@ -0,0 +1,126 @@
+package top.sanscraft.icerings.sphere;
+
+import org.bukkit.World;
+import org.bukkit.block.Block;
+import top.sanscraft.icerings.logging.SphereLog;
+import top.sanscraft.icerings.metrics.IceRingsMetrics;
+import top.sanscraft.icerings.utils.IceRingsUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Removes a sphere's remaining shell blocks a slice at a time, either restoring
+ * the original blocks or clearing them to air, then unregisters the sphere.
+ * Blocks shared with other spheres stay in place; only the last owner restores them.
+ * Ghost blocks are never in the world, so their viewers are sent the real blocks instead.
+ * Blocks in unloaded chunks are deferred until the chunk loads rather than loading it.
+ */
+public class SphereRemovalJob extends SphereJob {
+    
+    private final SphereLog sphereLog;
+    private final SphereData sphere;
+    private final World world;
+    private final boolean restoreOriginals;
+    private final IceRingsUtils iceRingsUtils;
+    private final SphereBlockIndex blockIndex;
+    private final SphereRegistry spheres;
+    private final SphereJournal journal;
+    private final GhostShellRenderer ghostRenderer;
+    private final DeferredRestorations deferred;
+    private final IceRingsMetrics metrics;
+    private int cursor;
+    
+    public SphereRemovalJob(SphereLog sphereLog, SphereData sphere, World world, boolean restoreOriginals,
+                            IceRingsUtils iceRingsUtils, SphereBlockIndex blockIndex, SphereRegistry spheres,
+                            SphereJournal journal, GhostShellRenderer ghostRenderer, DeferredRestorations deferred,
+                            IceRingsMetrics metrics) {
+        this.sphereLog = sphereLog;
+        this.sphere = sphere;
+        this.world = world;
+        this.restoreOriginals = restoreOriginals;
+        this.iceRingsUtils = iceRingsUtils;
+        this.blockIndex = blockIndex;
+        this.spheres = spheres;
+        this.journal = journal;
+        this.ghostRenderer = ghostRenderer;
+        this.deferred = deferred;
+        this.metrics = metrics;
+    }
+    
+    @Override
+    protected int process(int maxBlocks) {
+        UUID worldId = sphere.getWorldId();
+        int end = (int) Math.min(sphere.getBlockCount(), (long) cursor + maxBlocks);
+        int processed = end - cursor;
+        List<Block> hidden = new ArrayList<>();
+        
+        for (; cursor < end; cursor++) {
+            int x = sphere.getBlockX(cursor);
+            int y = sphere.getBlockY(cursor);
+            int z = sphere.getBlockZ(cursor);
+            
+            // Skip blocks that were broken or now belong to another sphere
+            long cell = blockIndex.get(worldId, x, y, z);
+            if (cell == SphereBlockIndex.NO_CELL || !blockIndex.isOwner(worldId, x, y, z, cell, sphere.getHandle(), cursor)) {
+                continue;
+            }
+            
+            // Leave shared blocks to the remaining owners, handing over the original if this sphere held it
+            if (SphereBlockIndex.owners(cell) > 1) {
+                long updated = blockIndex.removeOwner(worldId, x, y, z, cell, sphere.getHandle(), cursor);
+                SphereData heir = spheres.get(SphereBlockIndex.handle(updated));
+                if (SphereBlockIndex.handle(cell) == sphere.getHandle() && heir != null) {
+                    int heirSlot = SphereBlockIndex.slot(updated);
+                    heir.setOriginal(heirSlot, sphere.getOriginal(cursor));
+                    journal.recordBlocks(heir, heirSlot, heirSlot + 1);
+                }
+                continue;
+            }
+            blockIndex.remove(worldId, x, y, z);
+            
+            boolean chunkLoaded = world != null && world.isChunkLoaded(x >> 4, z >> 4);
+            if (SphereBlockIndex.isGhost(cell)) {
+                // Nothing to undo in the world, viewers are sent the real block instead
+                if (chunkLoaded) {
+                    hidden.add(world.getBlockAt(x, y, z));
+                }
+            } else if (!chunkLoaded) {
+                // Don't load the chunk just to restore it, queue the block until the chunk loads
+                deferred.defer(worldId, x, y, z, restoreOriginals ? sphere.getOriginal(cursor) : null,
+                    sphere.getSphereId());
+            } else if (restoreOriginals) {
+                // Restore original block
+                iceRingsUtils.restoreOriginalBlock(world.getBlockAt(x, y, z), sphere.getOriginal(cursor));
+            } else {
+                // Just remove the sphere block (set to air)
+                iceRingsUtils.removeSphereBlock(world.getBlockAt(x, y, z));
+            }
+        }
+        
+        ghostRenderer.hideBlocks(sphere, hidden);
+        return processed;
+    }
+    
+    @Override
+    public SphereData getSphere() {
+        return sphere;
+    }
+    
+    @Override
+    public int getRemainingBlocks() {
+        return sphere.getBlockCount() - cursor;
+    }
+    
+    @Override
+    protected void onComplete() {
+        spheres.remove(sphere);
+        ghostRenderer.unregister(sphere);
+        metrics.recordSphereRemoved(getWorkNanos());
+        if (!sphere.isGhost()) {
+            deferred.complete(sphere.getSphereId());
+        }
+        sphereLog.removed(sphere, restoreOriginals);
+    }
+}
@@ -0,0 +1,175 @@
+package top.sanscraft.icerings.sphere;
+
+import top.sanscraft.icerings.api.IceSphere;
+import top.sanscraft.icerings.utils.BlockKeys;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Uniform grid over the bounds of live spheres, one per world, backing the sphere query API.
+ * Each sphere is listed in every grid column its bounds cover, so a box query only looks at the
+ * spheres in the columns the box covers. Spheres too big for a few columns are kept in a short
+ * per-world list that every query checks instead.
+ * Queries may come from any plugin thread, so access is synchronized.
+ */
+public class SphereSpatialIndex {
+    
+    // Grid columns are 32x32 blocks
+    private static final int CELL_SHIFT = 5;
+    // Spheres covering more columns than this along X or Z go in the oversized list
+    private static final int MAX_CELLS_PER_AXIS = 8;
+    
+    private final Map<UUID, WorldGrid> worlds = new HashMap<>();
+    private final Map<UUID, List<IceSphere>> byOwner = new HashMap<>();
+    
+    public synchronized void add(IceSphere sphere) {
+        WorldGrid grid = worlds.computeIfAbsent(sphere.getWorldId(), worldId -> new WorldGrid());
+        if (isOversized(sphere)) {
+            grid.oversized.add(sphere);
+        } else {
+            for (int cellX = minCellX(sphere); cellX <= maxCellX(sphere); cellX++) {
+                for (int cellZ = minCellZ(sphere); cellZ <= maxCellZ(sphere); cellZ++) {
+                    grid.cells.computeIfAbsent(BlockKeys.chunk(cellX, cellZ), key -> new ArrayList<>(2)).add(sphere);
+                }
+            }
+        }
+        grid.size++;
+        byOwner.computeIfAbsent(sphere.getOwnerId(), ownerId -> new ArrayList<>(2)).add(sphere);
+    }
+    
+    public synchronized void remove(IceSphere sphere) {
+        WorldGrid grid = worlds.get(sphere.getWorldId());
+        if (grid == null) {
+            return;
+        }
+        if (isOversized(sphere)) {
+            grid.oversized.remove(sphere);
+        } else {
+            for (int cellX = minCellX(sphere); cellX <= maxCellX(sphere); cellX++) {
+                for (int cellZ = minCellZ(sphere); cellZ <= maxCellZ(sphere); cellZ++) {
+                    long key = BlockKeys.chunk(cellX, cellZ);
+                    List<IceSphere> cell = grid.cells.get(key);
+                    if (cell != null && cell.remove(sphere) && cell.isEmpty()) {
+                        grid.cells.remove(key);
+                    }
+                }
+            }
+        }
+        if (--grid.size == 0) {
+            worlds.remove(sphere.getWorldId());
+        }
+        List<IceSphere> owned = byOwner.get(sphere.getOwnerId());
+        if (owned != null && owned.remove(sphere) && owned.isEmpty()) {
+            byOwner.remove(sphere.getOwnerId());
+        }
+    }
+    
+    /**
+     * Adds the spheres whose bounds intersect a box of blocks to a list, each sphere once.
+     * The box is given by its lowest and highest blocks, both inclusive.
+     */
+    public synchronized void collect(UUID worldId, int minX, int minY, int minZ, int maxX, int maxY, int maxZ,
+                                     List<IceSphere> result) {
+        WorldGrid grid = worlds.get(worldId);
+        if (grid == null) {
+            return;
+        }
+        for (IceSphere sphere : grid.oversized) {
+            if (intersects(sphere, minX, minY, minZ, maxX, maxY, maxZ)) {
+                result.add(sphere);
+            }
+        }
+        
+        int minCellX = minX >> CELL_SHIFT;
+        int minCellZ = minZ >> CELL_SHIFT;
+        int maxCellX = maxX >> CELL_SHIFT;
+        int maxCellZ = maxZ >> CELL_SHIFT;
+        // A box wider than the grid is faster to check against every column
+        if ((long) (maxCellX - minCellX + 1) * (maxCellZ - minCellZ + 1) > grid.cells.size()) {
+            for (Map.Entry<Long, List<IceSphere>> entry : grid.cells.entrySet()) {
+                int cellX = BlockKeys.chunkX(entry.getKey());
+                int cellZ = BlockKeys.chunkZ(entry.getKey());
+                if (cellX >= minCellX && cellX <= maxCellX && cellZ >= minCellZ && cellZ <= maxCellZ) {
+                    collectCell(entry.getValue(), cellX, cellZ, minCellX, minCellZ, minX, minY, minZ, maxX, maxY, maxZ, result);
+                }
+            }
+            return;
+        }
+        for (int cellX = minCellX; cellX <= maxCellX; cellX++) {
+            for (int cellZ = minCellZ; cellZ <= maxCellZ; cellZ++) {
+                List<IceSphere> cell = grid.cells.get(BlockKeys.chunk(cellX, cellZ));
+                if (cell != null) {
+                    collectCell(cell, cellX, cellZ, minCellX, minCellZ, minX, minY, minZ, maxX, maxY, maxZ, result);
+                }
+            }
+        }
+    }
+    
+    /**
+     * Gets the spheres placed by a player
+     */
+    public synchronized List<IceSphere> getOwnedBy(UUID ownerId) {
+        List<IceSphere> owned = byOwner.get(ownerId);
+        return owned == null ? new ArrayList<>() : new ArrayList<>(owned);
+    }
+    
+    public synchronized void clear() {
+        worlds.clear();
+        byOwner.clear();
+    }
+    
+    private static void collectCell(List<IceSphere> cell, int cellX, int cellZ, int minCellX, int minCellZ,
+                                    int minX, int minY, int minZ, int maxX, int maxY, int maxZ, List<IceSphere> result) {
+        for (IceSphere sphere : cell) {
+            // A sphere listed in several of the box's columns is only reported from the first of them
+            if (cellX != Math.max(minCellX, minCellX(sphere)) || cellZ != Math.max(minCellZ, minCellZ(sphere))) {
+                continue;
+            }
+            if (intersects(sphere, minX, minY, minZ, maxX, maxY, maxZ)) {
+                result.add(sphere);
+            }
+        }
+    }
+    
+    private static boolean intersects(IceSphere sphere, int minX, int minY, int minZ, int maxX, int maxY, int maxZ) {
+        int radius = sphere.getRadius();
+        return sphere.getCenterX() - radius <= maxX && sphere.getCenterX() + radius >= minX
+            && sphere.getCenterY() - radius <= maxY && sphere.getCenterY() + radius >= minY
+            && sphere.getCenterZ() - radius <= maxZ && sphere.getCenterZ() + radius >= minZ;
+    }
+    
+    private static boolean isOversized(IceSphere sphere) {
+        return maxCellX(sphere) - minCellX(sphere) >= MAX_CELLS_PER_AXIS
+            || maxCellZ(sphere) - minCellZ(sphere) >= MAX_CELLS_PER_AXIS;
+    }
+    
+    private static int minCellX(IceSphere sphere) {
+        return (sphere.getCenterX() - sphere.getRadius()) >> CELL_SHIFT;
+    }
+    
+    private static int maxCellX(IceSphere sphere) {
+        return (sphere.getCenterX() + sphere.getRadius()) >> CELL_SHIFT;
+    }
+    
+    private static int minCellZ(IceSphere sphere) {
+        return (sphere.getCenterZ() - sphere.getRadius()) >> CELL_SHIFT;
+    }
+    
+    private static int maxCellZ(IceSphere sphere) {
+        return (sphere.getCenterZ() + sphere.getRadius()) >> CELL_SHIFT;
+    }
+    
+    /**
+     * The grid of one world
+     */
+    private static final class WorldGrid {
+        // Spheres by grid column, keyed like chunks
+        private final Map<Long, List<IceSphere>> cells = new HashMap<>();
+        private final List<IceSphere> oversized = new ArrayList<>();
+        private int size;
+    }
+}
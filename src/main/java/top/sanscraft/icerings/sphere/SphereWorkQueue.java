@@ -0,0 +1,215 @@
+package top.sanscraft.icerings.sphere;
+
+import org.bukkit.Bukkit;
+import org.bukkit.World;
+import org.bukkit.plugin.Plugin;
+import top.sanscraft.icerings.scheduler.SphereScheduler;
+
+import java.util.ArrayDeque;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Central queue that spreads sphere block writes over ticks.
+ * Every tick the queued jobs are processed round-robin, each getting a fair slice
+ * of the per-tick block budget, until the block or time budget runs out.
+ * On region-threaded servers each job instead runs on the scheduler of the region owning its sphere,
+ * with the tick budget applying per job, since regions tick in parallel.
+ */
+public class SphereWorkQueue {
+    
+    // Smallest slice a job gets per turn, so many small jobs don't thrash the rotation
+    private static final int MIN_SLICE = 32;
+    
+    private final Plugin plugin;
+    private final SphereScheduler scheduler;
+    private final ArrayDeque<SphereJob> jobs = new ArrayDeque<>();
+    // Jobs running on their region's scheduler, only used on region-threaded servers
+    private final Set<RegionJob> regionJobs = ConcurrentHashMap.newKeySet();
+    
+    private int blocksPerTick;
+    private long maxNanosPerTick;
+    private int maxPendingBlocks;
+    private final AtomicLong pendingBlocks = new AtomicLong();
+    private final AtomicInteger pendingJobs = new AtomicInteger();
+    private SphereScheduler.Task task;
+    
+    public SphereWorkQueue(Plugin plugin, SphereScheduler scheduler) {
+        this.plugin = plugin;
+        this.scheduler = scheduler;
+        loadSettings();
+    }
+    
+    /**
+     * Reads the tick budget and back-pressure limits from the config
+     */
+    public void loadSettings() {
+        blocksPerTick = Math.max(1, plugin.getConfig().getInt("performance.blocks-per-tick", 2000));
+        maxNanosPerTick = Math.max(1, plugin.getConfig().getLong("performance.max-tick-time-micros", 2000)) * 1000L;
+        maxPendingBlocks = Math.max(1, plugin.getConfig().getInt("performance.max-pending-blocks", 20000));
+    }
+    
+    /**
+     * Starts processing the queue every tick
+     */
+    public void start() {
+        if (task == null && !scheduler.isRegionThreaded()) {
+            task = scheduler.runGlobalTimer(this::tick, 1L, 1L);
+        }
+    }
+    
+    /**
+     * Stops processing and drops all pending jobs
+     */
+    public void stop() {
+        if (task != null) {
+            task.cancel();
+            task = null;
+        }
+        clear();
+    }
+    
+    /**
+     * Adds a job to the back of the queue, or on region-threaded servers hands it to its region
+     */
+    public void submit(SphereJob job) {
+        pendingBlocks.addAndGet(job.getRemainingBlocks());
+        pendingJobs.incrementAndGet();
+        if (!scheduler.isRegionThreaded()) {
+            jobs.addLast(job);
+            return;
+        }
+        
+        SphereData sphere = job.getSphere();
+        World world = Bukkit.getWorld(sphere.getWorldId());
+        if (world == null) {
+            // Nothing in the world to write, the job only updates bookkeeping
+            finish(job, job.getRemainingBlocks());
+            job.runToCompletion();
+            return;
+        }
+        RegionJob regionJob = new RegionJob(job);
+        regionJobs.add(regionJob);
+        regionJob.task = scheduler.runAtTimer(world, sphere.getCenterX() >> 4, sphere.getCenterZ() >> 4, regionJob::tick, 1L, 1L);
+    }
+    
+    /**
+     * Drops all pending jobs without running them
+     */
+    public void clear() {
+        jobs.clear();
+        for (RegionJob regionJob : regionJobs) {
+            regionJob.task.cancel();
+        }
+        regionJobs.clear();
+        pendingBlocks.set(0);
+        pendingJobs.set(0);
+    }
+    
+    /**
+     * Checks if the queue is too far behind to accept new spheres
+     */
+    public boolean isSaturated() {
+        return pendingBlocks.get() >= maxPendingBlocks;
+    }
+    
+    public long getPendingBlocks() {
+        return pendingBlocks.get();
+    }
+    
+    public int getPendingJobs() {
+        return pendingJobs.get();
+    }
+    
+    private void finish(SphereJob job, int remainingBlocks) {
+        pendingBlocks.addAndGet(-remainingBlocks);
+        pendingJobs.decrementAndGet();
+    }
+    
+    private void tick() {
+        if (jobs.isEmpty()) {
+            return;
+        }
+        
+        long deadline = System.nanoTime() + maxNanosPerTick;
+        int budget = blocksPerTick;
+        // Jobs passed over in a row because they aren't ready yet; once all of them have been, the tick is done
+        int waiting = 0;
+        
+        while (budget > 0 && !jobs.isEmpty() && System.nanoTime() < deadline) {
+            SphereJob job = jobs.pollFirst();
+            if (job.isCancelled()) {
+                finish(job, job.getRemainingBlocks());
+                continue;
+            }
+            if (!job.isReady()) {
+                jobs.addLast(job);
+                if (++waiting >= jobs.size()) {
+                    break;
+                }
+                continue;
+            }
+            waiting = 0;
+            
+            int slice = Math.min(budget, Math.max(MIN_SLICE, budget / (jobs.size() + 1)));
+            int remainingBefore = job.getRemainingBlocks();
+            budget -= Math.max(1, job.processTimed(slice));
+            int remainingAfter = job.getRemainingBlocks();
+            pendingBlocks.addAndGet(-(remainingBefore - remainingAfter));
+            
+            if (remainingAfter > 0) {
+                jobs.addLast(job);
+            } else {
+                finish(job, 0);
+                job.onComplete();
+            }
+        }
+    }
+    
+    /**
+     * A job driven by a repeating task on its region's scheduler
+     */
+    private final class RegionJob {
+        private final SphereJob job;
+        private SphereScheduler.Task task;
+        
+        private RegionJob(SphereJob job) {
+            this.job = job;
+        }
+        
+        private void tick() {
+            if (!regionJobs.contains(this)) {
+                return; // Cleared while this tick was already scheduled
+            }
+            if (job.isCancelled()) {
+                done(job.getRemainingBlocks());
+                return;
+            }
+            if (!job.isReady()) {
+                return;
+            }
+            
+            long deadline = System.nanoTime() + maxNanosPerTick;
+            int budget = blocksPerTick;
+            while (budget > 0 && job.getRemainingBlocks() > 0 && System.nanoTime() < deadline) {
+                int remainingBefore = job.getRemainingBlocks();
+                budget -= Math.max(1, job.processTimed(Math.min(budget, Math.max(MIN_SLICE, budget / 4))));
+                pendingBlocks.addAndGet(-(remainingBefore - job.getRemainingBlocks()));
+            }
+            
+            if (job.getRemainingBlocks() == 0) {
+                done(0);
+                job.onComplete();
+            }
+        }
+        
+        private void done(int remainingBlocks) {
+            task.cancel();
+            if (regionJobs.remove(this)) {
+                finish(job, remainingBlocks);
+            }
+        }
+    }
+}
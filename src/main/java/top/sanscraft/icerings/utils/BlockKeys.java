@@ -0,0 +1,52 @@
+package top.sanscraft.icerings.utils;
+
+/**
+ * Packs block and chunk coordinates into single long keys for primitive maps.
+ * Block keys use the vanilla layout: 26 bits x, 26 bits z, 12 bits y.
+ */
+public final class BlockKeys {
+
+    private BlockKeys() {
+    }
+
+    /**
+     * Packs block coordinates into a long key
+     */
+    public static long block(int x, int y, int z) {
+        return ((long) (x & 0x3FFFFFF) << 38) | ((long) (z & 0x3FFFFFF) << 12) | (y & 0xFFF);
+    }
+
+    public static int blockX(long key) {
+        return (int) (key >> 38);
+    }
+
+    public static int blockY(long key) {
+        return (int) (key << 52 >> 52);
+    }
+
+    public static int blockZ(long key) {
+        return (int) (key << 26 >> 38);
+    }
+
+    /**
+     * Packs chunk coordinates into a long key
+     */
+    public static long chunk(int chunkX, int chunkZ) {
+        return ((long) chunkZ << 32) | (chunkX & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Gets the key of the chunk containing a block
+     */
+    public static long chunkOfBlock(int x, int z) {
+        return chunk(x >> 4, z >> 4);
+    }
+
+    public static int chunkX(long key) {
+        return (int) key;
+    }
+
+    public static int chunkZ(long key) {
+        return (int) (key >> 32);
+    }
+}
@@ -0,0 +1,182 @@
+package top.sanscraft.icerings.utils;
+
+import java.util.function.Consumer;
+
+/**
+ * Hierarchical timer wheel keyed on server ticks.
+ * Scheduling, cancelling and rescheduling are O(1); advancing by one tick expires
+ * the whole current slot and occasionally cascades a higher-level slot down.
+ *
+ * Level 0 has 256 one-tick slots, and each of the three levels above has 64 slots
+ * covering 64 times the span of the level below (about 39 days in total).
+ */
+public final class ExpiryWheel<T> {
+
+    private static final int LEVEL0_BITS = 8;
+    private static final int LEVEL_BITS = 6;
+    private static final int LEVELS = 4;
+    private static final long MAX_DELAY = (1L << (LEVEL0_BITS + LEVEL_BITS * (LEVELS - 1))) - 1;
+
+    private final Timer<T>[][] slots;
+    private long currentTick;
+    private int size;
+
+    @SuppressWarnings("unchecked")
+    public ExpiryWheel() {
+        slots = new Timer[LEVELS][];
+        slots[0] = new Timer[1 << LEVEL0_BITS];
+        for (int level = 1; level < LEVELS; level++) {
+            slots[level] = new Timer[1 << LEVEL_BITS];
+        }
+    }
+
+    /**
+     * A scheduled expiry. Keep it to cancel or reschedule the timer later.
+     */
+    public static final class Timer<T> {
+        private final T value;
+        private long deadline;
+        private Timer<T> prev;
+        private Timer<T> next;
+        private int level = -1;
+        private int slot;
+
+        private Timer(T value) {
+            this.value = value;
+        }
+
+        public T getValue() {
+            return value;
+        }
+
+        public boolean isScheduled() {
+            return level >= 0;
+        }
+    }
+
+    /**
+     * Schedules a value to expire after the given number of ticks (at least one)
+     */
+    public Timer<T> schedule(T value, long delayTicks) {
+        Timer<T> timer = new Timer<>(value);
+        timer.deadline = currentTick + Math.max(1, delayTicks);
+        insert(timer);
+        size++;
+        return timer;
+    }
+
+    /**
+     * Moves a scheduled timer to expire after the given number of ticks from now
+     */
+    public void reschedule(Timer<T> timer, long delayTicks) {
+        if (!timer.isScheduled()) {
+            return;
+        }
+        unlink(timer);
+        timer.deadline = currentTick + Math.max(1, delayTicks);
+        insert(timer);
+    }
+
+    /**
+     * Cancels a timer so it never expires. Does nothing if it already expired.
+     */
+    public void cancel(Timer<T> timer) {
+        if (timer != null && timer.isScheduled()) {
+            unlink(timer);
+            size--;
+        }
+    }
+
+    /**
+     * Gets the number of ticks until a timer expires
+     */
+    public long getRemainingTicks(Timer<T> timer) {
+        return timer.isScheduled() ? timer.deadline - currentTick : 0;
+    }
+
+    /**
+     * Advances the wheel by one tick, passing every value that expires to the consumer.
+     * The consumer may schedule or cancel other timers.
+     */
+    public void advance(Consumer<T> onExpire) {
+        currentTick++;
+
+        // Cascade higher levels into lower ones when the level below wraps around
+        for (int level = LEVELS - 1; level >= 1; level--) {
+            int shift = LEVEL0_BITS + LEVEL_BITS * (level - 1);
+            if ((currentTick & ((1L << shift) - 1)) == 0) {
+                cascade(level, (int) ((currentTick >>> shift) & ((1 << LEVEL_BITS) - 1)));
+            }
+        }
+
+        Timer<T>[] level0 = slots[0];
+        int index = (int) (currentTick & (level0.length - 1));
+        Timer<T> timer;
+        while ((timer = level0[index]) != null) {
+            unlink(timer);
+            size--;
+            onExpire.accept(timer.value);
+        }
+    }
+
+    public long getCurrentTick() {
+        return currentTick;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private void cascade(int level, int index) {
+        Timer<T> timer = slots[level][index];
+        slots[level][index] = null;
+        while (timer != null) {
+            Timer<T> next = timer.next;
+            timer.prev = null;
+            timer.next = null;
+            timer.level = -1;
+            insert(timer);
+            timer = next;
+        }
+    }
+
+    private void insert(Timer<T> timer) {
+        long delta = Math.min(timer.deadline - currentTick, MAX_DELAY);
+        long placement = currentTick + delta;
+
+        int level = 0;
+        int index = (int) (placement & ((1 << LEVEL0_BITS) - 1));
+        for (int candidate = 1; candidate < LEVELS; candidate++) {
+            int shift = LEVEL0_BITS + LEVEL_BITS * (candidate - 1);
+            if (delta < (1L << shift)) {
+                break;
+            }
+            level = candidate;
+            index = (int) ((placement >>> shift) & ((1 << LEVEL_BITS) - 1));
+        }
+
+        Timer<T> head = slots[level][index];
+        timer.next = head;
+        timer.prev = null;
+        if (head != null) {
+            head.prev = timer;
+        }
+        slots[level][index] = timer;
+        timer.level = level;
+        timer.slot = index;
+    }
+
+    private void unlink(Timer<T> timer) {
+        if (timer.prev != null) {
+            timer.prev.next = timer.next;
+        } else {
+            slots[timer.level][timer.slot] = timer.next;
+        }
+        if (timer.next != null) {
+            timer.next.prev = timer.prev;
+        }
+        timer.prev = null;
+        timer.next = null;
+        timer.level = -1;
+    }
+}
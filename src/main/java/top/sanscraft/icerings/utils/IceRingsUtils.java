@@ -1,30 +1,47 @@
 package top.sanscraft.icerings.utils;
 
 import org.bukkit.ChatColor;
-import org.bukkit.Location;
 import org.bukkit.Material;
+import org.bukkit.World;
 import org.bukkit.block.Block;
+import org.bukkit.block.data.BlockData;
 import org.bukkit.inventory.ItemStack;
 import org.bukkit.inventory.meta.ItemMeta;
 import org.bukkit.persistence.PersistentDataContainer;
 import org.bukkit.persistence.PersistentDataType;
 import org.bukkit.NamespacedKey;
 import org.bukkit.plugin.Plugin;
+import top.sanscraft.icerings.config.IceRingsSettings;
+import top.sanscraft.icerings.sphere.SphereData;
 
 import java.util.Arrays;
 import java.util.List;
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.Map;
 
 public class IceRingsUtils {
     
     private final NamespacedKey specialBlueIceKey;
     private final Plugin plugin;
+    // Settings snapshot, swapped on reload or when the block rules are edited
+    private volatile IceRingsSettings settings;
     
-    public IceRingsUtils(Plugin plugin) {
+    public IceRingsUtils(Plugin plugin, IceRingsSettings settings) {
         this.plugin = plugin;
         this.specialBlueIceKey = new NamespacedKey(plugin, "special_blue_ice");
+        this.settings = settings;
+    }
+    
+    /**
+     * Switches to a new settings snapshot, e.g. after a reload or a replaceable blocks edit
+     */
+    public void applySettings(IceRingsSettings settings) {
+        this.settings = settings;
+    }
+    
+    /**
+     * Gets the compiled replaceable block rules. The matcher is immutable, so it can be used from any thread.
+     */
+    public ReplaceableBlockMatcher getReplaceableBlocks() {
+        return settings.getReplaceableBlocks();
     }
     
     /**
@@ -72,117 +89,103 @@ public class IceRingsUtils {
     }
     
     /**
-     * Creates a hollow sphere of blue stained glass around a center location
-     * Returns a map containing the sphere locations and their original block types
+     * Replaces one shell block of a sphere with blue stained glass if the block can be replaced.
+     * Ghost spheres only record the block; their glass is sent to clients instead.
+     * @return the slot the block was recorded in, or -1 if it was left alone
      */
-    public Map<Location, Material> createHollowSphereWithOriginals(Location center, int radius) {
-        Map<Location, Material> sphereData = new HashMap<>();
-        
-        // Get replaceable blocks from config
-        List<String> replaceableBlockNames = plugin.getConfig().getStringList("ice-rings.replaceable-blocks");
-        boolean inverseMode = plugin.getConfig().getBoolean("ice-rings.inverse-replaceable-blocks", false);
+    public int placeShellBlock(SphereData sphere, World world, int offset) {
+        Block block = world.getBlockAt(
+            sphere.getCenterX() + SphereShellCache.unpackX(offset),
+            sphere.getCenterY() + SphereShellCache.unpackY(offset),
+            sphere.getCenterZ() + SphereShellCache.unpackZ(offset));
         
-        for (int x = -radius; x <= radius; x++) {
-            for (int y = -radius; y <= radius; y++) {
-                for (int z = -radius; z <= radius; z++) {
-                    double distance = Math.sqrt(x * x + y * y + z * z);
-                    
-                    // Create hollow sphere - only place blocks on the surface
-                    if (distance >= radius - 0.5 && distance <= radius + 0.5) {
-                        Location blockLocation = center.clone().add(x, y, z);
-                        Block block = blockLocation.getBlock();
-                        
-                        // Check if current block can be replaced based on config and inverse mode
-                        if (canReplaceBlock(block, replaceableBlockNames, inverseMode)) {
-                            // Store the original block type before replacing
-                            Material originalType = block.getType();
-                            block.setType(Material.BLUE_STAINED_GLASS);
-                            sphereData.put(blockLocation, originalType);
-                        }
-                    }
-                }
-            }
+        // Check if current block can be replaced based on config and inverse mode
+        if (!settings.getReplaceableBlocks().canReplace(block.getType())) {
+            return -1;
         }
         
-        return sphereData;
+        // Store the full original block state before replacing, so orientation and waterlogging survive
+        BlockData original = block.getBlockData();
+        if (!sphere.isGhost()) {
+            setBlockType(block, Material.BLUE_STAINED_GLASS);
+        }
+        return sphere.addBlock(offset, original);
     }
     
     /**
-     * Creates a hollow sphere of blue stained glass around a center location (legacy method)
-     * @deprecated Use createHollowSphereWithOriginals instead
+     * Replaces one shell block of a sphere that was planned from a chunk snapshot.
+     * The block's state is compared with the planned one; if it changed since the snapshot, even just
+     * its orientation or waterlogging, it is classified again and its current state is recorded instead.
+     * @return the slot the block was recorded in, or -1 if it was left alone
      */
-    @Deprecated
-    public List<Location> createHollowSphere(Location center, int radius) {
-        Map<Location, Material> sphereData = createHollowSphereWithOriginals(center, radius);
-        return new ArrayList<>(sphereData.keySet());
+    public int placePlannedShellBlock(SphereData sphere, World world, int offset, BlockData original) {
+        Block block = world.getBlockAt(
+            sphere.getCenterX() + SphereShellCache.unpackX(offset),
+            sphere.getCenterY() + SphereShellCache.unpackY(offset),
+            sphere.getCenterZ() + SphereShellCache.unpackZ(offset));
+        
+        BlockData current = block.getBlockData();
+        if (!current.equals(original)) {
+            if (!settings.getReplaceableBlocks().canReplace(current.getMaterial())) {
+                return -1;
+            }
+            original = current;
+        }
+        if (!sphere.isGhost()) {
+            setBlockType(block, Material.BLUE_STAINED_GLASS);
+        }
+        return sphere.addBlock(offset, original);
     }
     
     /**
-     * Checks if a block can be replaced based on the configured replaceable blocks list and inverse mode
+     * Restores a block's original state if it is still an ice sphere block.
+     * A null original clears the block to air.
      */
-    private boolean canReplaceBlock(Block block, List<String> replaceableBlockNames, boolean inverseMode) {
-        if (replaceableBlockNames == null || replaceableBlockNames.isEmpty()) {
-            // Fallback to default behavior if config is empty
-            boolean defaultReplaceable = block.getType() == Material.AIR || 
-                                       block.getType() == Material.WATER ||
-                                       block.getType() == Material.LAVA ||
-                                       block.getType().name().contains("GRASS") ||
-                                       block.getType().name().contains("FLOWER");
-            
-            // If inverse mode and no config, return opposite of default
-            return inverseMode ? !defaultReplaceable : defaultReplaceable;
-        }
-        
-        String blockTypeName = block.getType().name();
-        boolean isInList = false;
-        
-        for (String replaceableName : replaceableBlockNames) {
-            // Direct match
-            if (blockTypeName.equals(replaceableName.toUpperCase())) {
-                isInList = true;
-                break;
-            }
-            
-            // Partial match (for block families like GRASS, FLOWER, etc.)
-            if (blockTypeName.contains(replaceableName.toUpperCase())) {
-                isInList = true;
-                break;
-            }
+    public void restoreOriginalBlock(Block block, BlockData original) {
+        if (original == null) {
+            removeSphereBlock(block);
+        } else if (isSphereGlass(block.getType())) {
+            block.setBlockData(original, settings.isApplyPhysics());
         }
-        
-        // Return based on inverse mode
-        return inverseMode ? !isInList : isInList;
     }
     
     /**
-     * Removes a sphere of blocks at the given locations
+     * Sets a sphere block to air if it is still an ice sphere block
      */
-    public void removeSphere(List<Location> sphereBlocks) {
-        for (Location location : sphereBlocks) {
-            Block block = location.getBlock();
-            if (block.getType() == Material.BLUE_STAINED_GLASS ||
-                block.getType() == Material.CYAN_STAINED_GLASS ||
-                block.getType() == Material.LIGHT_BLUE_STAINED_GLASS) {
-                block.setType(Material.AIR);
-            }
+    public void removeSphereBlock(Block block) {
+        if (isSphereGlass(block.getType())) {
+            setBlockType(block, Material.AIR);
         }
     }
     
     /**
-     * Restores original blocks at the given locations with their original materials
+     * Writes a sphere block. Physics and neighbour updates are skipped unless
+     * performance.apply-physics is enabled, so a shell doesn't cause an update storm.
      */
-    public void restoreOriginalBlocks(Map<Location, Material> originalBlocks) {
-        for (Map.Entry<Location, Material> entry : originalBlocks.entrySet()) {
-            Location location = entry.getKey();
-            Material originalType = entry.getValue();
-            Block block = location.getBlock();
-            
-            // Only restore if the block is still an ice sphere block
-            if (block.getType() == Material.BLUE_STAINED_GLASS ||
-                block.getType() == Material.CYAN_STAINED_GLASS ||
-                block.getType() == Material.LIGHT_BLUE_STAINED_GLASS) {
-                block.setType(originalType);
-            }
+    public void setBlockType(Block block, Material type) {
+        block.setType(type, settings.isApplyPhysics());
+    }
+    
+    /**
+     * Checks if a material is one of the sphere's stage glass types
+     */
+    public static boolean isSphereGlass(Material type) {
+        return type == Material.BLUE_STAINED_GLASS ||
+               type == Material.CYAN_STAINED_GLASS ||
+               type == Material.LIGHT_BLUE_STAINED_GLASS;
+    }
+    
+    /**
+     * Gets the glass type shown for a durability stage (1 = blue, 2 = cyan, 3 = light blue)
+     */
+    public static Material getStageMaterial(int stage) {
+        switch (stage) {
+            case 2:
+                return Material.CYAN_STAINED_GLASS;
+            case 3:
+                return Material.LIGHT_BLUE_STAINED_GLASS;
+            default:
+                return Material.BLUE_STAINED_GLASS;
         }
     }
     
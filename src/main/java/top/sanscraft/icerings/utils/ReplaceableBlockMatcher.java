@@ -0,0 +1,66 @@
+package top.sanscraft.icerings.utils;
+
+import org.bukkit.Material;
+
+import java.util.List;
+
+/**
+ * Replaceable-block rules compiled into a lookup table indexed by Material ordinal.
+ * Built once from the config so each shell block check is a single array read.
+ */
+public final class ReplaceableBlockMatcher {
+
+    private final boolean[] replaceable;
+
+    private ReplaceableBlockMatcher(boolean[] replaceable) {
+        this.replaceable = replaceable;
+    }
+
+    /**
+     * Compiles the configured block names and inverse mode into a matcher.
+     * Names match a material exactly or as a substring (for block families like GRASS),
+     * and an empty list falls back to the built-in defaults.
+     */
+    public static ReplaceableBlockMatcher compile(List<String> replaceableBlockNames, boolean inverseMode) {
+        Material[] materials = Material.values();
+        boolean[] replaceable = new boolean[materials.length];
+        boolean useDefaults = replaceableBlockNames == null || replaceableBlockNames.isEmpty();
+
+        String[] patterns = new String[useDefaults ? 0 : replaceableBlockNames.size()];
+        for (int i = 0; i < patterns.length; i++) {
+            patterns[i] = replaceableBlockNames.get(i).toUpperCase();
+        }
+
+        for (Material material : materials) {
+            boolean isInList = useDefaults ? isDefaultReplaceable(material) : matchesAny(material.name(), patterns);
+            replaceable[material.ordinal()] = inverseMode ? !isInList : isInList;
+        }
+
+        return new ReplaceableBlockMatcher(replaceable);
+    }
+
+    /**
+     * Checks if a block of the given type can be replaced
+     */
+    public boolean canReplace(Material type) {
+        return replaceable[type.ordinal()];
+    }
+
+    private static boolean isDefaultReplaceable(Material material) {
+        return material == Material.AIR ||
+               material == Material.WATER ||
+               material == Material.LAVA ||
+               material.name().contains("GRASS") ||
+               material.name().contains("FLOWER");
+    }
+
+    private static boolean matchesAny(String blockTypeName, String[] patterns) {
+        for (String pattern : patterns) {
+            // Partial match also covers direct matches
+            if (blockTypeName.contains(pattern)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
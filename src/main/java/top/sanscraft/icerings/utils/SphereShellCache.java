@@ -0,0 +1,138 @@
+package top.sanscraft.icerings.utils;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Caches the hollow sphere shell for each radius as a table of packed block offsets.
+ * The shell shape only depends on the radius, so it is computed once and shared by every sphere.
+ * Writing a shell a chunk column at a time depends on where the center sits in its chunk, so the
+ * shell is also kept in one order per center position within a chunk column.
+ */
+public final class SphereShellCache {
+
+    /** Largest radius that fits in the 10-bit signed offset packing */
+    public static final int MAX_RADIUS = 511;
+
+    // Larger shells are reordered for each sphere instead of keeping up to 256 orders of them
+    private static final int MAX_CACHED_ORDER_SIZE = 1 << 16;
+
+    private static final int[] EMPTY_SHELL = new int[0];
+    private static final Map<Integer, int[]> SHELLS = new ConcurrentHashMap<>();
+    // Shells ordered for a center position within a chunk column, keyed by radius and chunk-local x and z
+    private static final Map<Integer, int[]> ORDERED_SHELLS = new ConcurrentHashMap<>();
+
+    private SphereShellCache() {
+    }
+
+    /**
+     * Gets the shell offsets for the given radius, building them on first use.
+     * Offsets are ordered by chunk column, then height, for a center in the corner of its chunk.
+     * The returned array is shared and must not be modified.
+     */
+    public static int[] getShell(int radius) {
+        if (radius < 0) {
+            return EMPTY_SHELL;
+        }
+        if (radius > MAX_RADIUS) {
+            throw new IllegalArgumentException("Sphere radius " + radius + " exceeds maximum of " + MAX_RADIUS);
+        }
+        return SHELLS.computeIfAbsent(radius, SphereShellCache::buildShell);
+    }
+
+    /**
+     * Gets the shell offsets for the given radius ordered for a sphere centered at the given block,
+     * grouped by the world's chunk columns and then by height, so each chunk section is written in one run.
+     * Holds the same offsets as {@link #getShell(int)}, only in a different order.
+     * The returned array may be shared and must not be modified.
+     */
+    public static int[] getShell(int radius, int centerX, int centerZ) {
+        int[] shell = getShell(radius);
+        int localX = centerX & 15;
+        int localZ = centerZ & 15;
+        if ((localX | localZ) == 0) {
+            return shell;
+        }
+        if (shell.length > MAX_CACHED_ORDER_SIZE) {
+            return orderByChunk(shell, shell.length, localX, localZ);
+        }
+        return ORDERED_SHELLS.computeIfAbsent((radius << 8) | (localX << 4) | localZ,
+            key -> orderByChunk(shell, shell.length, localX, localZ));
+    }
+
+    /**
+     * Builds the shell for a radius using integer-only math.
+     * A block is on the shell when radius - 0.5 <= distance <= radius + 0.5,
+     * which is the same as (2r - 1)^2 <= 4d^2 <= (2r + 1)^2 with d^2 = x^2 + y^2 + z^2.
+     */
+    private static int[] buildShell(int radius) {
+        long inner = radius == 0 ? 0 : (2L * radius - 1) * (2L * radius - 1);
+        long outer = (2L * radius + 1) * (2L * radius + 1);
+
+        int[] offsets = new int[64];
+        int count = 0;
+
+        for (int x = -radius; x <= radius; x++) {
+            for (int y = -radius; y <= radius; y++) {
+                for (int z = -radius; z <= radius; z++) {
+                    long distance4 = 4L * (x * x + y * y + z * z);
+                    if (distance4 < inner || distance4 > outer) {
+                        continue;
+                    }
+
+                    if (count == offsets.length) {
+                        offsets = Arrays.copyOf(offsets, count * 2);
+                    }
+                    offsets[count++] = pack(x, y, z);
+                }
+            }
+        }
+
+        return orderByChunk(offsets, count, 0, 0);
+    }
+
+    /**
+     * Sorts offsets by the chunk column they fall in for a center at the given chunk-local x and z,
+     * then by height. Sorting by full height rather than section keeps every section in one run
+     * whatever the center's height.
+     */
+    private static int[] orderByChunk(int[] offsets, int count, int localX, int localZ) {
+        // Sort keys carry the column and height in the high half and the packed offset in the low half
+        long[] keys = new long[count];
+        for (int i = 0; i < count; i++) {
+            int offset = offsets[i];
+            long column = ((long) (((unpackX(offset) + localX) >> 4) + 64) << 7)
+                | (((unpackZ(offset) + localZ) >> 4) + 64);
+            long order = (column << 10) | (unpackY(offset) + 512);
+            keys[i] = (order << 32) | (offset & 0xFFFFFFFFL);
+        }
+
+        Arrays.sort(keys);
+
+        int[] shell = new int[count];
+        for (int i = 0; i < count; i++) {
+            shell[i] = (int) keys[i];
+        }
+        return shell;
+    }
+
+    /**
+     * Packs a block offset into an int, 10 signed bits per axis
+     */
+    public static int pack(int x, int y, int z) {
+        return ((x & 0x3FF) << 20) | ((y & 0x3FF) << 10) | (z & 0x3FF);
+    }
+
+    public static int unpackX(int offset) {
+        return (offset << 2) >> 22;
+    }
+
+    public static int unpackY(int offset) {
+        return (offset << 12) >> 22;
+    }
+
+    public static int unpackZ(int offset) {
+        return (offset << 22) >> 22;
+    }
+}
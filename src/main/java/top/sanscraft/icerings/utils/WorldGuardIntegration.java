@@ -1,24 +1,58 @@
 package top.sanscraft.icerings.utils;
 
 import com.sk89q.worldedit.bukkit.BukkitAdapter;
+import com.sk89q.worldedit.math.BlockVector3;
 import com.sk89q.worldguard.WorldGuard;
 import com.sk89q.worldguard.protection.ApplicableRegionSet;
 import com.sk89q.worldguard.protection.managers.RegionManager;
+import com.sk89q.worldguard.protection.regions.ProtectedCuboidRegion;
 import com.sk89q.worldguard.protection.regions.RegionContainer;
 import com.sk89q.worldguard.protection.regions.ProtectedRegion;
+import com.sk89q.worldguard.protection.regions.RegionType;
 import org.bukkit.Location;
+import org.bukkit.World;
 import org.bukkit.plugin.Plugin;
+import top.sanscraft.icerings.config.IceRingsSettings;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class WorldGuardIntegration {
     
+    private static final ProtectedRegion[] NO_REGIONS = new ProtectedRegion[0];
+    
     private final Plugin plugin;
     private final boolean worldGuardEnabled;
     
-    public WorldGuardIntegration(Plugin plugin) {
+    // Settings snapshot, swapped on reload
+    private volatile IceRingsSettings settings;
+    
+    // Allowed regions overlapping each chunk, per world. Placements are checked from every region thread on Folia.
+    private final Map<UUID, WorldRegions> regionCache = new ConcurrentHashMap<>();
+    
+    public WorldGuardIntegration(Plugin plugin, IceRingsSettings settings) {
         this.plugin = plugin;
         this.worldGuardEnabled = plugin.getServer().getPluginManager().getPlugin("WorldGuard") != null;
+        this.settings = settings;
+    }
+    
+    /**
+     * Switches to a new settings snapshot and drops all cached region lookups
+     */
+    public void applySettings(IceRingsSettings settings) {
+        this.settings = settings;
+        invalidateCache();
+    }
+    
+    /**
+     * Drops all cached region lookups, e.g. after regions were edited
+     */
+    public void invalidateCache() {
+        regionCache.clear();
     }
     
     /**
@@ -29,49 +63,152 @@ public class WorldGuardIntegration {
     }
     
     /**
-     * Checks if ice rings can be placed at the given location
-     * @param location The location to check
-     * @param allowedRegions List of allowed region names from config
+     * Checks if an ice sphere can be placed at the given location.
+     * Only the center is checked unless full sphere checks are enabled,
+     * in which case every shell block must be inside an allowed region.
+     * @param location The sphere center
+     * @param radius The sphere radius
      * @return true if placement is allowed, false otherwise
      */
-    public boolean canPlaceIceRings(Location location, List<String> allowedRegions) {
-        // If WorldGuard is not available, allow placement globally
-        if (!worldGuardEnabled) {
-            return true;
-        }
-        
-        // If no regions are configured, allow placement globally
-        if (allowedRegions == null || allowedRegions.isEmpty()) {
+    public boolean canPlaceIceRings(Location location, int radius) {
+        // If WorldGuard is not available or no regions are configured, allow placement globally
+        IceRingsSettings settings = this.settings;
+        if (!worldGuardEnabled || !settings.isRegionChecksEnabled() || settings.getAllowedRegions().isEmpty()) {
             return true;
         }
         
         try {
-            RegionContainer container = WorldGuard.getInstance().getPlatform().getRegionContainer();
-            RegionManager regionManager = container.get(BukkitAdapter.adapt(location.getWorld()));
+            World world = location.getWorld();
+            RegionManager regionManager = getRegionManager(world);
             
             if (regionManager == null) {
                 return true; // No regions in this world, allow placement
             }
             
-            // Get all regions at this location
-            ApplicableRegionSet regions = regionManager.getApplicableRegions(BukkitAdapter.asBlockVector(location));
-            
-            // Check if any of the regions at this location are in the allowed list
-            for (ProtectedRegion region : regions) {
-                if (allowedRegions.contains(region.getId())) {
-                    return true;
-                }
+            if (settings.isCheckFullSphere() && radius > 0) {
+                return isSphereInAllowedRegions(world, regionManager, location, radius);
             }
             
-            // If we have allowed regions configured but none match, deny placement
-            return false;
-            
+            // Check the center against the allowed regions cached for its chunk
+            ProtectedRegion[] candidates = getChunkRegions(world, regionManager,
+                location.getBlockX() >> 4, location.getBlockZ() >> 4);
+            return findContaining(candidates, location.getBlockX(), location.getBlockY(), location.getBlockZ(), 0) >= 0;
+        
         } catch (Exception e) {
             plugin.getLogger().warning("Error checking WorldGuard regions: " + e.getMessage());
             return true; // Default to allowing placement if there's an error
         }
     }
     
+    /**
+     * Checks every shell block of a sphere with a single region query over its bounding box
+     */
+    private boolean isSphereInAllowedRegions(World world, RegionManager regionManager, Location center, int radius) {
+        int cx = center.getBlockX();
+        int cy = center.getBlockY();
+        int cz = center.getBlockZ();
+        int minY = Math.max(world.getMinHeight(), cy - radius);
+        int maxY = Math.min(world.getMaxHeight() - 1, cy + radius);
+        BlockVector3 min = BlockVector3.at(cx - radius, minY, cz - radius);
+        BlockVector3 max = BlockVector3.at(cx + radius, maxY, cz + radius);
+        
+        ProtectedRegion[] candidates = queryAllowedRegions(regionManager, min, max);
+        if (candidates.length == 0) {
+            return false;
+        }
+        
+        // A cuboid holding both corners of the bounding box holds the whole sphere
+        for (ProtectedRegion region : candidates) {
+            if (region.getType() == RegionType.CUBOID && region.contains(min) && region.contains(max)) {
+                return true;
+            }
+        }
+        
+        // Otherwise test each shell block in memory, starting from the region that matched last
+        int last = 0;
+        for (int offset : SphereShellCache.getShell(radius)) {
+            int y = cy + SphereShellCache.unpackY(offset);
+            if (y < minY || y > maxY) {
+                continue; // Outside the world, nothing is placed there
+            }
+            last = findContaining(candidates, cx + SphereShellCache.unpackX(offset), y,
+                cz + SphereShellCache.unpackZ(offset), last);
+            if (last < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * Gets the allowed regions overlapping a chunk column, querying WorldGuard only on a cache miss
+     */
+    private ProtectedRegion[] getChunkRegions(World world, RegionManager regionManager, int chunkX, int chunkZ) {
+        long now = System.currentTimeMillis();
+        IceRingsSettings settings = this.settings;
+        
+        // Allowed regions added, removed, redefined or reloaded in this world invalidate its cache
+        WorldRegions cache = regionCache.get(world.getUID());
+        if (cache == null || !cache.isCurrent(regionManager, settings.getAllowedRegions())) {
+            cache = new WorldRegions(regionManager, settings.getAllowedRegions());
+            regionCache.put(world.getUID(), cache);
+        }
+        
+        long chunkKey = BlockKeys.chunk(chunkX, chunkZ);
+        ChunkRegions cached = cache.chunks.get(chunkKey);
+        if (cached != null && cached.expiresAt > now) {
+            return cached.regions;
+        }
+        
+        int minX = chunkX << 4;
+        int minZ = chunkZ << 4;
+        ProtectedRegion[] regions = queryAllowedRegions(regionManager,
+            BlockVector3.at(minX, world.getMinHeight(), minZ),
+            BlockVector3.at(minX + 15, world.getMaxHeight() - 1, minZ + 15));
+        long cacheMillis = settings.getRegionCacheMillis();
+        if (cacheMillis > 0) {
+            cache.chunks.put(chunkKey, new ChunkRegions(regions, now + cacheMillis));
+            cache.evictExpired(now, cacheMillis);
+        }
+        return regions;
+    }
+    
+    /**
+     * Gets the allowed regions intersecting a box, using a temporary cuboid region as the query
+     */
+    private ProtectedRegion[] queryAllowedRegions(RegionManager regionManager, BlockVector3 min, BlockVector3 max) {
+        ProtectedCuboidRegion box = new ProtectedCuboidRegion("__icerings_query__", true, min, max);
+        Set<String> allowedRegions = settings.getAllowedRegions();
+        List<ProtectedRegion> allowed = new ArrayList<>();
+        for (ProtectedRegion region : regionManager.getApplicableRegions(box)) {
+            if (allowedRegions.contains(region.getId())) {
+                allowed.add(region);
+            }
+        }
+        return allowed.isEmpty() ? NO_REGIONS : allowed.toArray(NO_REGIONS);
+    }
+    
+    /**
+     * Finds a region containing a block, trying the given index first
+     * @return the index of the containing region, or -1 if none contains it
+     */
+    private static int findContaining(ProtectedRegion[] regions, int x, int y, int z, int first) {
+        if (first < regions.length && regions[first].contains(x, y, z)) {
+            return first;
+        }
+        for (int i = 0; i < regions.length; i++) {
+            if (i != first && regions[i].contains(x, y, z)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+    
+    private RegionManager getRegionManager(World world) {
+        RegionContainer container = WorldGuard.getInstance().getPlatform().getRegionContainer();
+        return container.get(BukkitAdapter.adapt(world));
+    }
+    
     /**
      * Gets the names of all regions at a specific location
      */
@@ -81,8 +218,7 @@ public class WorldGuardIntegration {
         }
         
         try {
-            RegionContainer container = WorldGuard.getInstance().getPlatform().getRegionContainer();
-            RegionManager regionManager = container.get(BukkitAdapter.adapt(location.getWorld()));
+            RegionManager regionManager = getRegionManager(location.getWorld());
             
             if (regionManager == null) {
                 return "No regions in this world";
@@ -103,9 +239,66 @@ public class WorldGuardIntegration {
             }
             
             return regionNames.toString();
-            
+        
         } catch (Exception e) {
             return "Error checking regions: " + e.getMessage();
         }
     }
+    
+    private static final class WorldRegions {
+        private final RegionManager regionManager;
+        // The allowed regions the cache was built from, in config order, null where one didn't exist
+        private final ProtectedRegion[] allowed;
+        private final Map<Long, ChunkRegions> chunks = new ConcurrentHashMap<>();
+        private volatile long nextSweep;
+        
+        private WorldRegions(RegionManager regionManager, Set<String> allowedIds) {
+            this.regionManager = regionManager;
+            this.allowed = new ProtectedRegion[allowedIds.size()];
+            int i = 0;
+            for (String id : allowedIds) {
+                allowed[i++] = regionManager.getRegion(id);
+            }
+        }
+        
+        /**
+         * Checks the world's allowed regions are still the ones the cache was built from.
+         * WorldGuard fires no event when regions change, but it replaces a region's object when the region
+         * is defined, redefined, removed or loaded again, so comparing the objects catches every change
+         * that can move an allowed region's bounds.
+         */
+        private boolean isCurrent(RegionManager regionManager, Set<String> allowedIds) {
+            if (regionManager != this.regionManager || allowedIds.size() != allowed.length) {
+                return false;
+            }
+            int i = 0;
+            for (String id : allowedIds) {
+                if (regionManager.getRegion(id) != allowed[i++]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        
+        /**
+         * Drops expired chunk lookups, sweeping at most once per cache duration
+         */
+        private void evictExpired(long now, long cacheMillis) {
+            if (now < nextSweep) {
+                return;
+            }
+            nextSweep = now + cacheMillis;
+            chunks.values().removeIf(entry -> entry.expiresAt <= now);
+        }
+    }
+    
+    private static final class ChunkRegions {
+        private final ProtectedRegion[] regions;
+        private final long expiresAt;
+        
+        private ChunkRegions(ProtectedRegion[] regions, long expiresAt) {
+            this.regions = regions;
+            this.expiresAt = expiresAt;
+        }
+    }
 }